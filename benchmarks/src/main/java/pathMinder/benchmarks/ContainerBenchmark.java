@@ -0,0 +1,75 @@
+package pathMinder.benchmarks;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import pathMinder.core.*;
+
+/**
+ * Measures the core Container operations on a deep tree of nested bags and on a single wide hoard.
+ * Operations that modify the tree undo themselves, so the tree keeps its shape throughout a run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContainerBenchmark {
+
+	@Param({"deep", "wide"})
+	public String shape;
+
+	@Param({"1000", "100000"})
+	public int items;
+
+	private static final int DEPTH = 64; //the depth of the deep tree
+
+	private ItemGroup root; //the outermost bag
+	private ItemGroup leaf; //the innermost bag
+	private ItemGroup other; //a second bag, beside the innermost one
+	private Item deepItem; //an item in the innermost bag
+	private Item spare; //an item in no container
+
+	@Setup
+	public void setUp() {
+		ItemGroup[] bags = Fixtures.nested(shape.equals("deep") ? DEPTH : 1, items);
+		root = bags[0];
+		leaf = bags[bags.length - 1];
+		other = Fixtures.bag("Other");
+		(bags.length > 1 ? bags[bags.length - 2] : root).add(other);
+		deepItem = new GoldCoin();
+		leaf.add(deepItem);
+		spare = new GoldCoin();
+	}
+
+	@Benchmark
+	public boolean addRemove() {
+		leaf.add(spare);
+		return root.remove(spare);
+	}
+
+	@Benchmark
+	public boolean contains() { return root.contains(deepItem); }
+
+	@Benchmark
+	public boolean move() {
+		root.move(deepItem, other);
+		return root.move(deepItem, leaf);
+	}
+
+	@Benchmark
+	public float getWeight() { return root.getWeight(); }
+
+	@Benchmark
+	public int size() { return root.size(); }
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public void iterate(Blackhole blackhole) {
+		for(Iterator<Item> it = root.iterator(); it.hasNext();) blackhole.consume(it.next());
+	}
+}
@@ -0,0 +1,52 @@
+package pathMinder.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import pathMinder.core.Encumbrance;
+import pathMinder.core.EncumbranceBatch;
+
+/**
+ * Measures encumbrance classification over a spread of loads and strength scores, including tremendous strength,
+ * one creature at a time and as a whole batch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncumbranceBenchmark {
+
+	private static final int SAMPLES = 1 << 10; //a power of two, so the index wraps with a mask
+
+	private final float[] weights = new float[SAMPLES];
+	private final int[] strengths = new int[SAMPLES];
+	private final int[] speeds = new int[SAMPLES];
+	private final EncumbranceBatch batch = new EncumbranceBatch(SAMPLES);
+	private int index = 0;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(42);
+		for(int i = 0; i < SAMPLES; i++) {
+			strengths[i] = 1 + random.nextInt(45);
+			weights[i] = random.nextFloat() * 2 * Encumbrance.Heavy.getCapacity(strengths[i]);
+			speeds[i] = 30;
+		}
+	}
+
+	@Benchmark
+	public Encumbrance getEncumbrance() {
+		int i = index++ & (SAMPLES - 1);
+		return Encumbrance.getEncumbrance(weights[i], strengths[i]);
+	}
+
+	/**
+	 * Evaluates every sample at once; divide the throughput by SAMPLES to compare with getEncumbrance.
+	 */
+	@Benchmark
+	public EncumbranceBatch evaluateBatch() { return batch.evaluate(weights, strengths, speeds, SAMPLES); }
+}
@@ -0,0 +1,31 @@
+package pathMinder.benchmarks;
+
+import pathMinder.core.*;
+
+/**
+ * Builds inventory trees of realistic shapes.
+ */
+final class Fixtures {
+
+	private Fixtures() {}
+
+	/**
+	 * An unlimited container, standing in for a bag with no practical limits.
+	 */
+	static ItemGroup bag(String name) { return new ItemGroup(name, Float.MAX_VALUE, Float.MAX_VALUE, Integer.MAX_VALUE); }
+
+	/**
+	 * Builds a chain of nested bags, with the items spread evenly over every level.
+	 * A depth of 1 is a single wide container, such as a coin hoard.
+	 * @return the bags, outermost first
+	 */
+	static ItemGroup[] nested(int depth, int items) {
+		ItemGroup[] bags = new ItemGroup[depth];
+		for(int level = 0; level < depth; level++) {
+			bags[level] = bag("Bag " + level);
+			if(level > 0) bags[level - 1].add(bags[level]);
+		}
+		for(int i = 0; i < items; i++) bags[i % depth].add(new GoldCoin());
+		return bags;
+	}
+}
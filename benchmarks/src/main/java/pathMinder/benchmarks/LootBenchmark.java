@@ -0,0 +1,42 @@
+package pathMinder.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import pathMinder.core.*;
+
+/**
+ * Measures loot generation from a mixed table of stacked coins and individual items, one operation being a whole hoard.
+ * Hoards of a million rolls are generated in parallel.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LootBenchmark {
+
+	@Param({"1000", "1000000"})
+	public int rolls;
+
+	private LootTable table;
+	private long seed = 0;
+
+	@Setup
+	public void setUp() {
+		LootTable pouch = new LootTable().add(SilverCoin::new, 1, 20, 3).add(Apple::new, 1);
+		table = new LootTable()
+				.add(GoldCoin::new, 1, 100, 5)
+				.add(CopperCoin::new, 10, 200, 5)
+				.add(Arrow::new, 10, 20, 3)
+				.add(Apple::new, 2)
+				.add(pouch, 2)
+				.addNothing(3);
+	}
+
+	@Benchmark
+	public List<Item> roll() { return table.roll(rolls, seed++); }
+}
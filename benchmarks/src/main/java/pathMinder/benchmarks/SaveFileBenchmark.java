@@ -0,0 +1,58 @@
+package pathMinder.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+import pathMinder.core.*;
+
+/**
+ * Measures save file throughput on a world of backpacks holding coins and stacks of arrows, one operation being the whole file.
+ * Writing streams through a direct buffer to a file channel; reading parses a memory-mapped file.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SaveFileBenchmark {
+
+	@Param({"10000", "100000"})
+	public int items;
+
+	private SaveFile save;
+	private Path written; //rewritten by every write
+	private Path saved; //read by every read
+
+	@Setup
+	public void setUp() throws IOException {
+		ItemGroup world = Fixtures.bag("World");
+		for(int i = 0; i < items / 100; i++) {
+			Backpack backpack = new Backpack();
+			world.add(backpack);
+			for(int j = 0; j < 99; j++) backpack.add(j % 2 == 0 ? new GoldCoin() : new ItemStack(new Arrow(), j % 10 + 1));
+		}
+		save = new SaveFile(Collections.emptyList(), Collections.singletonList(world));
+
+		written = Files.createTempFile("pathMinder", ".sav");
+		saved = Files.createTempFile("pathMinder", ".sav");
+		save.write(saved);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(written);
+		Files.deleteIfExists(saved);
+	}
+
+	@Benchmark
+	public void writeStream() throws IOException { save.write(written); }
+
+	@Benchmark
+	public SaveFile readMapped() throws IOException { return SaveFile.read(saved); }
+}
@@ -0,0 +1,6 @@
+package pathMinder.core;
+
+public abstract class Ammunition extends Item implements Stackable {
+	protected Ammunition(ItemType type) { super(type); }
+	protected Ammunition(String name, float weight, float volume, int cost) { super(name, weight, volume, cost); }
+}
@@ -1,5 +1,7 @@
 package pathMinder.core;
 
-public class Apple extends Item {
-	public Apple() {super("Apple", 0.5f, 0.0834f, 3);}
+public class Apple extends Item implements Stackable {
+	public static final ItemType TYPE = ItemType.of("Apple", 0.5f, 0.0834f, 3);
+
+	public Apple() {super(TYPE);}
 }
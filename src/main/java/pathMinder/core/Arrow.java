@@ -0,0 +1,7 @@
+package pathMinder.core;
+
+public class Arrow extends Ammunition {
+	public static final ItemType TYPE = ItemType.of("Arrow", 3/20f, 0.002f, 5);
+
+	public Arrow() { super(TYPE); }
+}
@@ -1,6 +1,7 @@
 package pathMinder.core;
 
 public class Barrel extends Container {
-	public Barrel() {
-		super("Barrel, wooden", 30.0f, 11f, 200, 650f, 10f, Integer.MAX_VALUE, true); }
-}
\ No newline at end of file
+	public static final ItemType TYPE = ItemType.of("Barrel, wooden", 30.0f, 11f, 200, 650f, 10f, Integer.MAX_VALUE, true);
+
+	public Barrel() { super(TYPE); }
+}
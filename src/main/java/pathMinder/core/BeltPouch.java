@@ -1,8 +1,8 @@
 package pathMinder.core;
 
 public class BeltPouch extends Container {
-	public BeltPouch() {
-		super("Pouch, belt", 0.5f, 0.01f, 100,
+	public static final ItemType TYPE = ItemType.of("Pouch, belt", 0.5f, 0.01f, 100,
 		10, 1/16f, Integer.MAX_VALUE, false);
-	}
-}
\ No newline at end of file
+
+	public BeltPouch() { super(TYPE); }
+}
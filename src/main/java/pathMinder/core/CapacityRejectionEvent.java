@@ -0,0 +1,45 @@
+package pathMinder.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A Flight Recorder event for a container refusing an item for lack of capacity.
+ * Only loaded when the Flight Recorder is available.
+ */
+@Name("pathMinder.CapacityRejection")
+@Label("Capacity Rejection")
+@Category("pathMinder")
+@Description("A container refused an item because of its weight, volume or count limits")
+class CapacityRejectionEvent extends Event {
+
+	@Label("Container")
+	String container;
+
+	@Label("Item")
+	String item;
+
+	@Label("Contents Weight")
+	float contentsWeight;
+
+	@Label("Item Weight")
+	float itemWeight;
+
+	@Label("Count")
+	int count;
+
+	static void emit(Container container, Item item) {
+		CapacityRejectionEvent event = new CapacityRejectionEvent();
+		if(!event.isEnabled()) return;
+
+		event.container = container.getName();
+		event.item = item == null ? null : item.getName();
+		event.contentsWeight = container.getContentsWeight();
+		event.itemWeight = item == null ? 0 : item.getWeight();
+		event.count = container.getCount();
+		event.commit();
+	}
+}
@@ -1,17 +1,42 @@
 package pathMinder.core;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedHashSet;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
+/**
+ * A creature and everything it carries.
+ * <p>
+ * A character's encumbrance, speed, maximum dexterity bonus and armor check penalty are cached,
+ * and are only recalculated when the weight of its inventory or its strength changes,
+ * so reading them is free. Listeners are notified whenever the encumbrance crosses into another tier.
+ */
 public class Character {
 
+	/**
+	 * Receives notice of a Character's encumbrance changing tier, such as from Light to Medium.
+	 */
+	@FunctionalInterface
+	public interface EncumbranceListener {
+		void encumbranceChanged(Character character, Encumbrance oldEncumbrance, Encumbrance newEncumbrance);
+	}
+
 	private String name;
 
 	private int baseStrength;
 	private int baseSpeed;
 
 	private Inventory inventory;
+	private final Set<Item> inventoryView;
+
+	//derived from the inventory's weight and the character's strength; see update()
+	private float maxWeight;
+	private Encumbrance encumbrance;
+	private int speed;
+
+	private final List<EncumbranceListener> listeners = new ArrayList<>(0);
 
 	public Character(String name) { this(name, 10, 30); }
 	public Character(String name, int baseStrength, int baseSpeed) {
@@ -19,16 +44,106 @@ public class Character {
 		this.baseStrength = baseStrength;
 		this.baseSpeed = baseSpeed;
 		inventory = new Inventory(this);
+		inventoryView = Collections.unmodifiableSet(inventory);
+		maxWeight = Encumbrance.Heavy.getCapacity(baseStrength);
+		update();
 	}
 
 
 	public String getName() { return name; }
-	public Encumbrance getEncumbrance() { return Encumbrance.getEncumbrance(inventory.getWeight(), getStrength()); }
+	public Encumbrance getEncumbrance() { return encumbrance; }
 	public int getStrength() { return baseStrength; }
+	public int getBaseSpeed() { return baseSpeed; }
+
+	/**
+	 * @return the character's speed at its current encumbrance
+	 */
+	public int getSpeed() { return speed; }
+
+	/**
+	 * @return the maximum dexterity bonus to armor class allowed by the character's current encumbrance
+	 */
+	public int getMaxDex() { return encumbrance.maxDex; }
+
+	/**
+	 * @return the armor check penalty from the character's current encumbrance
+	 */
+	public int getACP() { return encumbrance.ACP; }
+
+	/**
+	 * Changes the character's strength, which may change its encumbrance.
+	 * If the character is already carrying more than its new strength allows, it keeps its equipment but becomes more encumbered.
+	 */
+	public void setStrength(int strength) {
+		baseStrength = strength;
+		maxWeight = Encumbrance.Heavy.getCapacity(strength);
+		update();
+	}
+
+	public void setBaseSpeed(int baseSpeed) {
+		this.baseSpeed = baseSpeed;
+		speed = encumbrance.getSpeed(baseSpeed);
+	}
+
+	public void addEncumbranceListener(EncumbranceListener listener) { listeners.add(listener); }
+	public boolean removeEncumbranceListener(EncumbranceListener listener) { return listeners.remove(listener); }
+
+	Inventory getInventoryGroup() { return inventory; }
+
+	/**
+	 * @return the most weight the character can pick up, the limit of a heavy load
+	 */
+	float getMaxWeight() { return maxWeight; }
+
+	/**
+	 * Reclassifies the character's encumbrance, called whenever the weight of its inventory or its strength changes.
+	 * Listeners are only notified if the encumbrance changed tier.
+	 */
+	void update() {
+		Encumbrance oldEncumbrance = encumbrance;
+		Encumbrance newEncumbrance = Encumbrance.getEncumbrance(inventory.getWeight(), baseStrength);
+		if(newEncumbrance == null) newEncumbrance = Encumbrance.Atlassian; //beyond even Atlassian's capacity
+		if(newEncumbrance == oldEncumbrance) return;
+
+		encumbrance = newEncumbrance;
+		speed = newEncumbrance.getSpeed(baseSpeed);
+		if(oldEncumbrance == null) return; //initializing
+
+		for(EncumbranceListener listener : listeners.toArray(new EncumbranceListener[0]))
+			listener.encumbranceChanged(this, oldEncumbrance, newEncumbrance);
+	}
 
 	public boolean pick(Item item) { return inventory.add(item); }
 	public boolean drop(Item item) { return inventory.remove(item); }
-	public Set<Item> getInventory() { return new LinkedHashSet<>(inventory); }
+	/**
+	 * Returns a live, read-only view of everything the character carries, including the contents of containers.
+	 * Nothing is copied; the view always reflects the current inventory, and its iterators are fail-fast.
+	 * @return every item in the character's inventory
+	 */
+	public Set<Item> getInventory() { return inventoryView; }
+
+	/**
+	 * @return a live, read-only view of the items the character carries directly, not including the contents of containers
+	 */
+	public Set<Item> getInventoryContents() { return inventory.getContents(); }
+
+	/**
+	 * @param type the type of the items being viewed
+	 * @return a live, read-only view of every item of the given type in the character's inventory
+	 * @see FilteredView
+	 */
+	public Collection<Item> getInventory(ItemType type) { return new FilteredView<>(inventory, Item.class, item -> type.equals(item.getType())); }
+
+	/**
+	 * @param type the class of the items being viewed
+	 * @return a live, read-only view of every item of the given class in the character's inventory
+	 * @see FilteredView
+	 */
+	public <T extends Item> Collection<T> getInventory(Class<T> type) { return new FilteredView<>(inventory, type, item -> true); }
+	/**
+	 * @return an immutable snapshot of this character's inventory, which may be read from other threads
+	 */
+	public Snapshot getInventorySnapshot() { return inventory.snapshot(); }
 	public boolean has(Item item) { return inventory.contains(item); }
 	public boolean hasAll(Collection<Item> items) { return inventory.containsAll(items); }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package pathMinder.core;
 
-public abstract class Coin extends Item{
+public abstract class Coin extends Item implements Stackable {
+	protected Coin(ItemType type) { super(type); }
 	protected Coin(String name, float weight, float volume, int cost) { super(name, weight, volume, cost); }
 }
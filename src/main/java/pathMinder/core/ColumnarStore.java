@@ -0,0 +1,457 @@
+package pathMinder.core;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * An inventory storage engine for very large item populations, such as the world state of a campaign server.
+ * <p>
+ * Rather than an object per item, a ColumnarStore keeps every item in a set of primitive parallel arrays,
+ * indexed by a dense integer id. Each item's type, parent, quantity, weight, volume, cost and flags are held in columns,
+ * and the tree structure is threaded through the columns as intrusive child lists.
+ * Sums and scans over a sub-tree are therefore tight loops over primitive arrays,
+ * with no per-item objects on the hot path and nothing for the garbage collector to trace.
+ * <p>
+ * The operations mirror those of Container, addressed by id instead of by reference:
+ * the same weight, volume and count restrictions apply, rigid containers are always counted as full,
+ * and the sub-tree totals of each container are cached and updated in O(depth) on every add, remove and move.
+ * Instance state such as nicknames and descriptions is not stored.
+ * <p>
+ * A ColumnarStore is not thread-safe.
+ *
+ * @see Container
+ */
+public class ColumnarStore {
+
+	/**
+	 * The id used to represent the absence of an item, such as the parent of an item that is not in a container.
+	 */
+	public static final int NONE = -1;
+
+	private static final byte LIVE = 1; //the id refers to an item, rather than a free slot
+	private static final byte CONTAINER = 2;
+	private static final byte RIGID = 4;
+
+	//item columns, indexed by id
+	private int[] type; //ItemType id
+	private int[] parent;
+	private int[] firstChild;
+	private int[] nextSibling;
+	private int[] prevSibling;
+	private int[] quantity; //1 for anything but a stack
+	private long[] weight; //the weight of the item itself, excluding contents, in Units
+	private long[] volume; //the volume of the item itself, excluding contents, in Units
+	private long[] cost;
+	private byte[] flags;
+
+	//container columns, indexed by id; zero for items that are not containers
+	private long[] contentsWeight;
+	private long[] contentsVolume;
+	private int[] size; //number of items in the sub-tree
+	private int[] count; //number of direct children
+
+	private int highWater = 0; //one greater than the largest id ever allocated
+	private int[] free = new int[16]; //ids available for reuse
+	private int freeCount = 0;
+	private int liveCount = 0;
+
+	public ColumnarStore() { this(1024); }
+
+	/**
+	 * @param capacity the number of items to allocate space for initially
+	 */
+	public ColumnarStore(int capacity) {
+		if(capacity < 1) capacity = 1;
+
+		type = new int[capacity];
+		parent = new int[capacity];
+		firstChild = new int[capacity];
+		nextSibling = new int[capacity];
+		prevSibling = new int[capacity];
+		quantity = new int[capacity];
+		weight = new long[capacity];
+		volume = new long[capacity];
+		cost = new long[capacity];
+		flags = new byte[capacity];
+		contentsWeight = new long[capacity];
+		contentsVolume = new long[capacity];
+		size = new int[capacity];
+		count = new int[capacity];
+	}
+
+	/**
+	 * Creates a new item, which is not in any container.
+	 * @param itemType the type of the item
+	 * @return the id of the new item
+	 */
+	public int create(ItemType itemType) { return create(itemType, 1); }
+
+	/**
+	 * Creates a new stack of items, which is not in any container.
+	 * @param itemType the type of the units in the stack
+	 * @param quantity the number of units in the stack
+	 * @return the id of the new stack
+	 * @throws IllegalArgumentException if quantity is not positive, or more than one container is requested
+	 */
+	public int create(ItemType itemType, int quantity) {
+		if(quantity <= 0 || quantity > 1 && itemType.isContainer())
+			throw new IllegalArgumentException(String.format("Unable to create %d of %s", quantity, itemType));
+
+		int id = freeCount > 0 ? free[--freeCount] : allocate();
+		type[id] = itemType.getId();
+		parent[id] = firstChild[id] = nextSibling[id] = prevSibling[id] = NONE;
+		this.quantity[id] = quantity;
+		weight[id] = itemType.getWeightUnits() * quantity;
+		volume[id] = itemType.getVolumeUnits() * quantity;
+		cost[id] = (long) itemType.getCost() * quantity;
+		flags[id] = (byte) (LIVE | (itemType.isContainer() ? CONTAINER : 0) | (itemType.isRigid() ? RIGID : 0));
+		contentsWeight[id] = contentsVolume[id] = 0;
+		size[id] = count[id] = 0;
+
+		liveCount++;
+		return id;
+	}
+
+	/**
+	 * Copies an item, and its contents if it is a container, into this store.
+	 * The item itself is not modified.
+	 * @param item the root of the inventory tree being copied
+	 * @return the id of the copy of item, which is not in any container
+	 */
+	public int load(Item item) {
+		int id = create(item.getType(), item instanceof ItemStack ? ((ItemStack) item).getQuantity() : 1);
+
+		if(item instanceof Container) {
+			for(Item child : ((Container) item).getContents()) {
+				int childId = load(child);
+				link(childId, id);
+				propagate(id, weightOf(childId), volumeOf(childId), 1 + size[childId]);
+			}
+		}
+
+		return id;
+	}
+
+	/**
+	 * Deletes an item and its entire contents from this store, freeing their ids for reuse.
+	 * The item must first be removed from its container.
+	 * @param id the item being deleted
+	 * @throws IllegalStateException if the item is still in a container
+	 */
+	public void delete(int id) {
+		checkLive(id);
+		if(parent[id] != NONE) throw new IllegalStateException("Items must be removed from their container before being deleted");
+
+		int[] stack = new int[16];
+		int top = 0;
+		stack[top++] = id;
+		while(top > 0) {
+			int item = stack[--top];
+			for(int child = firstChild[item]; child != NONE; child = nextSibling[child]) {
+				if(top == stack.length) stack = Arrays.copyOf(stack, 2 * top);
+				stack[top++] = child;
+			}
+
+			flags[item] = 0;
+			if(freeCount == free.length) free = Arrays.copyOf(free, 2 * freeCount);
+			free[freeCount++] = item;
+			liveCount--;
+		}
+	}
+
+	/**
+	 * @return the number of items in this store
+	 */
+	public int getItemCount() { return liveCount; }
+
+	/**
+	 * @param id an id
+	 * @return true if the id refers to an item in this store
+	 */
+	public boolean exists(int id) { return id >= 0 && id < highWater && flags[id] != 0; }
+
+	public ItemType getType(int id) { checkLive(id); return ItemType.get(type[id]); }
+
+	public int getQuantity(int id) { checkLive(id); return quantity[id]; }
+
+	/**
+	 * @return the id of the container that directly holds the item, or NONE if it is not in a container
+	 */
+	public int getContainer(int id) { checkLive(id); return parent[id]; }
+
+	public boolean isContainer(int id) { checkLive(id); return (flags[id] & CONTAINER) != 0; }
+
+	/**
+	 * @return the weight of the item and all of its contents
+	 */
+	public float getWeight(int id) { checkLive(id); return Units.pounds(weightOf(id)); }
+
+	/**
+	 * @return the volume of the item and its contents, or of the full container if it is rigid
+	 */
+	public float getVolume(int id) { checkLive(id); return Units.cubicFeet(volumeOf(id)); }
+
+	public float getContentsWeight(int id) { checkLive(id); return Units.pounds(contentsWeight[id]); }
+
+	public float getContentsVolume(int id) { checkLive(id); return Units.cubicFeet(contentsVolume[id]); }
+
+	/**
+	 * @return the total number of items within the sub-tree rooted at the specified container, not counting itself
+	 */
+	public int size(int id) { checkLive(id); return size[id]; }
+
+	/**
+	 * @return the number of items directly within the specified container
+	 */
+	public int getCount(int id) { checkLive(id); return count[id]; }
+
+	/**
+	 * @return the ids of the items directly within the specified container, in the order they were added
+	 */
+	public int[] getContents(int id) {
+		checkLive(id);
+		int[] contents = new int[count[id]];
+		int index = 0;
+		for(int child = firstChild[id]; child != NONE; child = nextSibling[child]) contents[index++] = child;
+		return contents;
+	}
+
+	/**
+	 * Returns true if the specified item is within the container or any of its contents.
+	 * This runs in O(depth).
+	 */
+	public boolean contains(int container, int item) {
+		checkLive(container);
+		checkLive(item);
+		for(int c = parent[item]; c != NONE; c = parent[c]) if(c == container) return true;
+		return false;
+	}
+
+	/**
+	 * Checks if adding the specified item to the container would violate any constraints.
+	 * @see Container#fits(Item)
+	 */
+	public boolean fits(int item, int container) {
+		checkLive(item);
+		checkLive(container);
+		if((flags[container] & CONTAINER) == 0) return false;
+
+		ItemType limits = ItemType.get(type[container]);
+		return !(
+			contentsWeight[container] + weightOf(item) > limits.getMaxWeightUnits() || //weight restriction
+			contentsVolume[container] + volumeOf(item) > limits.getMaxVolumeUnits() || //volume restriction
+			count[container] >= limits.getMaxCount() || //count restriction
+			item == container || contains(item, container)); //self-containing restriction
+	}
+
+	/**
+	 * Adds an item to a container if doing so would not violate any constraints.
+	 * @return true if the item was added, and false if the item was already in a container
+	 * @throws TooManyItemsException if adding the item would violate the weight, volume or count constraints of the container
+	 * @see Container#add(Item)
+	 */
+	public boolean add(int item, int container) throws TooManyItemsException {
+		checkLive(item);
+		if(parent[item] != NONE) return false;
+		if(!fits(item, container)) throw new TooManyItemsException("Unable to add item to container.");
+
+		link(item, container);
+		propagate(container, weightOf(item), volumeOf(item), 1 + size[item]);
+		return true;
+	}
+
+	/**
+	 * Removes an item, and its contents, from its container.
+	 * @return true if the item was removed, or false if it was not in a container
+	 */
+	public boolean remove(int item) {
+		checkLive(item);
+		int container = parent[item];
+		if(container == NONE) return false;
+
+		unlink(item);
+		propagate(container, -weightOf(item), -volumeOf(item), -(1 + size[item]));
+		return true;
+	}
+
+	/**
+	 * Moves an item from its current container, if any, into another.
+	 * @return true if the item was moved, or false if it would not fit in the new container
+	 * @see Container#move(Item, Container)
+	 */
+	public boolean move(int item, int container) {
+		if(!fits(item, container)) return false;
+
+		remove(item);
+		link(item, container);
+		propagate(container, weightOf(item), volumeOf(item), 1 + size[item]);
+		return true;
+	}
+
+	/**
+	 * Calculates the total cost of the items within the specified container, not including the container itself.
+	 * This is a scan over the sub-tree.
+	 */
+	public long getContentsCost(int container) {
+		checkLive(container);
+		long total = 0;
+
+		int[] stack = new int[16];
+		int top = 0;
+		for(int child = firstChild[container]; child != NONE; child = nextSibling[child]) {
+			stack[top++] = child;
+			while(top > 0) {
+				int item = stack[--top];
+				total += cost[item];
+				for(int c = firstChild[item]; c != NONE; c = nextSibling[c]) {
+					if(top == stack.length) stack = Arrays.copyOf(stack, 2 * top);
+					stack[top++] = c;
+				}
+			}
+		}
+
+		return total;
+	}
+
+	/**
+	 * Counts the units of the specified type within the container; a stack counts as its quantity.
+	 * This is a scan over the sub-tree.
+	 */
+	public long count(int container, ItemType itemType) {
+		int typeId = itemType.getId();
+		long[] total = {0};
+		forEach(container, item -> { if(type[item] == typeId) total[0] += quantity[item]; });
+		return total[0];
+	}
+
+	/**
+	 * Calculates the total cost of every item in this store. This is a single linear pass over the cost column.
+	 */
+	public long getTotalCost() {
+		long total = 0;
+		for(int id = 0; id < highWater; id++) if(flags[id] != 0) total += cost[id];
+		return total;
+	}
+
+	/**
+	 * Visits every item within the specified container, in pre-order.
+	 * The action must not modify this store.
+	 * @param container the root of the sub-tree
+	 * @param action the action to be performed on the id of each item
+	 */
+	public void forEach(int container, IntConsumer action) {
+		checkLive(container);
+
+		int[] stack = new int[16];
+		int top = 0;
+		int child = firstChild[container];
+		while(child != NONE || top > 0) {
+			if(child == NONE) child = stack[--top];
+
+			action.accept(child);
+
+			if(firstChild[child] != NONE) { //descend, remembering where to resume
+				if(nextSibling[child] != NONE) {
+					if(top == stack.length) stack = Arrays.copyOf(stack, 2 * top);
+					stack[top++] = nextSibling[child];
+				}
+				child = firstChild[child];
+			} else {
+				child = nextSibling[child];
+			}
+		}
+	}
+
+	private int allocate() {
+		if(highWater == type.length) grow(2 * highWater);
+		return highWater++;
+	}
+
+	private void grow(int capacity) {
+		type = Arrays.copyOf(type, capacity);
+		parent = Arrays.copyOf(parent, capacity);
+		firstChild = Arrays.copyOf(firstChild, capacity);
+		nextSibling = Arrays.copyOf(nextSibling, capacity);
+		prevSibling = Arrays.copyOf(prevSibling, capacity);
+		quantity = Arrays.copyOf(quantity, capacity);
+		weight = Arrays.copyOf(weight, capacity);
+		volume = Arrays.copyOf(volume, capacity);
+		cost = Arrays.copyOf(cost, capacity);
+		flags = Arrays.copyOf(flags, capacity);
+		contentsWeight = Arrays.copyOf(contentsWeight, capacity);
+		contentsVolume = Arrays.copyOf(contentsVolume, capacity);
+		size = Arrays.copyOf(size, capacity);
+		count = Arrays.copyOf(count, capacity);
+	}
+
+	/**
+	 * Appends an item to the end of a container's child list, without updating any cached totals.
+	 */
+	private void link(int item, int container) {
+		parent[item] = container;
+		nextSibling[item] = NONE;
+
+		//the first child's prevSibling points to the last child, so appending is O(1)
+		int first = firstChild[container];
+		if(first == NONE) {
+			firstChild[container] = item;
+			prevSibling[item] = item;
+		} else {
+			int last = prevSibling[first];
+			nextSibling[last] = item;
+			prevSibling[item] = last;
+			prevSibling[first] = item;
+		}
+		count[container]++;
+	}
+
+	/**
+	 * Removes an item from its container's child list, without updating any cached totals.
+	 */
+	private void unlink(int item) {
+		int container = parent[item];
+		int first = firstChild[container];
+		int next = nextSibling[item];
+
+		if(item == first) {
+			firstChild[container] = next;
+			if(next != NONE) prevSibling[next] = prevSibling[item];
+		} else {
+			nextSibling[prevSibling[item]] = next;
+			if(next != NONE) prevSibling[next] = prevSibling[item];
+			else prevSibling[first] = prevSibling[item];
+		}
+
+		parent[item] = nextSibling[item] = prevSibling[item] = NONE;
+		count[container]--;
+	}
+
+	/**
+	 * Applies a change in contents to the cached totals of a container and each of its ancestors.
+	 * @see Container
+	 */
+	private void propagate(int container, long weight, long volume, int size) {
+		for(int c = container; c != NONE; c = parent[c]) {
+			contentsWeight[c] += weight;
+			contentsVolume[c] += volume;
+			this.size[c] += size;
+			if((flags[c] & RIGID) != 0) volume = 0;
+		}
+	}
+
+	/**
+	 * @return the weight of the item and all of its contents, in Units
+	 */
+	private long weightOf(int id) { return weight[id] + contentsWeight[id]; }
+
+	/**
+	 * @return the volume of the item and its contents, or of the full container if it is rigid, in Units
+	 */
+	private long volumeOf(int id) {
+		return (flags[id] & RIGID) != 0 ? volume[id] + ItemType.get(type[id]).getMaxVolumeUnits() : volume[id] + contentsVolume[id];
+	}
+
+	private void checkLive(int id) {
+		if(!exists(id)) throw new IllegalArgumentException(String.format("No item has id %d", id));
+	}
+}
@@ -0,0 +1,368 @@
+package pathMinder.core;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * A thread-safe ItemGroup, such as a pile on the ground that many players may pick from at once.
+ * <p>
+ * Every modification to the group's tree made through its own methods holds the group's write lock,
+ * so add, remove and move are linearizable and a capacity check cannot be raced past by another thread.
+ * This includes an ItemStack directly within the group changing quantity, as by merge or split.
+ * Moving an item between two ConcurrentItemGroups holds both of their locks, which are always acquired in the same order,
+ * so the item is never visible in both groups, or in neither.
+ * <p>
+ * Readers never take the write lock, but only the optimistic fast paths never block writers.
+ * Queries that walk a bounded path, such as size(), getWeight(), contains(Object), containsAll and locate(Item),
+ * read optimistically, and only fall back to the read lock if a write happened meanwhile.
+ * Iterators, spliterators, streams and toArray() are served from the group's cached Snapshot, which is read optimistically too,
+ * and the items are copied out of the immutable snapshot with no lock held.
+ * They are weakly consistent and never throw ConcurrentModificationException.
+ * <p>
+ * The read lock is held, and writers wait, while the find methods scan or query the tree,
+ * while the first snapshot taken after a write rebuilds its changed path, and while an optimistic read is retried.
+ * A long query therefore holds off writers for its duration; the index built by buildIndex() keeps the find methods short.
+ * <p>
+ * Containers nested within the group are protected only while they are modified through the group,
+ * for example with group.move(item, nestedBag) or group.remove(nestedItem).
+ * Modifying a nested container directly, including changing the quantity of a stack within it, is not thread-safe.
+ */
+public class ConcurrentItemGroup extends ItemGroup {
+
+	//used to order lock acquisition when two groups are locked at once
+	private static final AtomicLong sequence = new AtomicLong();
+
+	private final long order = sequence.getAndIncrement();
+	private final StampedLock lock = new StampedLock();
+	private volatile Thread writer = null; //the thread holding the write lock
+	private int holds = 0; //the number of times writer has acquired the write lock
+
+	public ConcurrentItemGroup(String name, float maxWeight, float maxVolume, int maxCount) {
+		super(name, maxWeight, maxVolume, maxCount);
+	}
+
+	protected ConcurrentItemGroup(String name, ItemType type) { super(name, type); }
+
+	@Override
+	public boolean add(Item newItem) throws TooManyItemsException {
+		long stamp = lockWrite();
+		try { return super.add(newItem); }
+		finally { unlockWrite(stamp); }
+	}
+
+	@Override
+	public boolean addAll(Collection<? extends Item> items) throws TooManyItemsException {
+		long stamp = lockWrite();
+		try { return super.addAll(items); }
+		finally { unlockWrite(stamp); }
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		long stamp = lockWrite();
+		try { return super.remove(o); }
+		finally { unlockWrite(stamp); }
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> items) {
+		long stamp = lockWrite();
+		try { return super.removeAll(items); }
+		finally { unlockWrite(stamp); }
+	}
+
+	@Override
+	public boolean retainAll(Collection<?> items) {
+		long stamp = lockWrite();
+		try { return super.retainAll(items); }
+		finally { unlockWrite(stamp); }
+	}
+
+	@Override
+	public void clear() {
+		long stamp = lockWrite();
+		try { super.clear(); }
+		finally { unlockWrite(stamp); }
+	}
+
+	/**
+	 * Atomically moves an item from within this group into another container.
+	 * If the new container is within another ConcurrentItemGroup, both groups are locked for the duration of the move.
+	 */
+	@Override
+	public boolean move(Item item, Container newContainer) {
+		if(newContainer == null) throw new NullPointerException();
+
+		for(;;) { //retry if the new container changes groups before it can be locked
+			ConcurrentItemGroup guard = guardOf(newContainer);
+			Boolean moved = locked(guard, () -> guardOf(newContainer) != guard ? null : super.move(item, newContainer));
+			if(moved != null) return moved;
+		}
+	}
+
+	/**
+	 * Atomically moves an item from another container into this group,
+	 * locking the item's current group as well, if it is within a ConcurrentItemGroup.
+	 */
+	@Override
+	boolean transfer(Item item) {
+		for(;;) { //retry if the item changes groups before it can be locked
+			Container source = item.getContainer();
+			if(source == null) return false; //the item was removed by another thread
+
+			ConcurrentItemGroup guard = guardOf(source);
+			Boolean moved = locked(guard, () -> item.getContainer() != source ? null : super.transfer(item));
+			if(moved != null) return moved;
+		}
+	}
+
+	/**
+	 * Applies a change in the quantity of a stack directly within this group, and checks it, under the write lock.
+	 */
+	@Override
+	void resize(long weight, long volume) throws TooManyItemsException {
+		long stamp = lockWrite();
+		try { super.resize(weight, volume); }
+		finally { unlockWrite(stamp); }
+	}
+
+	@Override
+	public long getWeightUnits() { return readLong(super::getWeightUnits); }
+
+	@Override
+	public long getContentsWeightUnits() { return readLong(super::getContentsWeightUnits); }
+
+	@Override
+	public long getVolumeUnits() { return readLong(super::getVolumeUnits); }
+
+	@Override
+	public long getContentsVolumeUnits() { return readLong(super::getContentsVolumeUnits); }
+
+	@Override
+	public int getCount() { return (int) readLong(super::getCount); }
+
+	@Override
+	public int size() { return (int) readLong(super::size); }
+
+	@Override
+	public boolean isEmpty() { return readBoolean(super::isEmpty); }
+
+	@Override
+	public boolean fits(Item item) { return readBoolean(() -> super.fits(item)); }
+
+	@Override
+	public boolean contains(Object o) { return readBoolean(() -> super.contains(o)); }
+
+	@Override
+	public boolean containsAll(Collection<?> items) { return read(() -> super.containsAll(items)); }
+
+	@Override
+	public List<Container> locate(Item item) { return read(() -> super.locate(item)); }
+
+	/**
+	 * Returns the cached snapshot of this group without locking if no write has discarded it,
+	 * or otherwise rebuilds the changed path of it under the read lock.
+	 */
+	@Override
+	public Snapshot snapshot() {
+		Snapshot cached = read(this::getSnapshot);
+		return cached != null ? cached : readLocked(super::snapshot);
+	}
+
+	@Override
+	public Object[] toArray() { return snapshot().items(); }
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T[] toArray(T[] a) {
+		Item[] items = snapshot().items();
+		if(a.length < items.length) return (T[]) Arrays.copyOf(items, items.length, a.getClass());
+
+		System.arraycopy(items, 0, a, 0, items.length);
+		if(a.length > items.length) a[items.length] = null;
+		return a;
+	}
+
+	@Override
+	public void buildIndex() {
+		long stamp = lockWrite();
+		try { super.buildIndex(); }
+		finally { unlockWrite(stamp); }
+	}
+
+	@Override
+	public void dropIndex() {
+		long stamp = lockWrite();
+		try { super.dropIndex(); }
+		finally { unlockWrite(stamp); }
+	}
+
+	@Override
+	public List<Item> findByName(String name) { return readLocked(() -> super.findByName(name)); }
+
+	@Override
+	public <T extends Item> List<T> findByClass(Class<T> type) { return readLocked(() -> super.findByClass(type)); }
+
+	@Override
+	public List<Item> findByWeight(float min, float max) { return readLocked(() -> super.findByWeight(min, max)); }
+
+	@Override
+	public List<Item> findByCost(float min, float max) { return readLocked(() -> super.findByCost(min, max)); }
+
+	@Override
+	public List<Container> findByCapacity(float weight, float volume) { return readLocked(() -> super.findByCapacity(weight, volume)); }
+
+	/**
+	 * Returns an iterator over this group's entire sub-tree, as captured by its latest snapshot.
+	 * Removing an item through the iterator removes it from this group.
+	 */
+	@Override
+	public Iterator<Item> iterator() {
+		Iterator<Object> copy = Arrays.asList(toArray()).iterator();
+		return new Iterator<Item>() {
+			private Item last = null;
+
+			@Override
+			public boolean hasNext() { return copy.hasNext(); }
+
+			@Override
+			public Item next() { return last = (Item) copy.next(); }
+
+			@Override
+			public void remove() {
+				if(last == null) throw new IllegalStateException();
+				ConcurrentItemGroup.this.remove(last);
+				last = null;
+			}
+		};
+	}
+
+	/**
+	 * Returns a spliterator over this group's entire sub-tree, as captured by its latest snapshot.
+	 */
+	@Override
+	public Spliterator<Item> spliterator() {
+		Item[] copy = snapshot().items();
+		return Spliterators.spliterator(copy, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+	}
+
+	/**
+	 * @return the ConcurrentItemGroup guarding the tree that the container is in, or null if there is none
+	 */
+	private static ConcurrentItemGroup guardOf(Container container) {
+		Container root = container.getRoot();
+		return root instanceof ConcurrentItemGroup ? (ConcurrentItemGroup) root : null;
+	}
+
+	/**
+	 * Runs an operation while holding the write locks of this group and, if it is not null, another group.
+	 * The locks are acquired in a fixed global order, so two threads locking the same pair cannot deadlock.
+	 */
+	private <T> T locked(ConcurrentItemGroup other, Supplier<T> operation) {
+		if(other == null || other == this) {
+			long stamp = lockWrite();
+			try { return operation.get(); }
+			finally { unlockWrite(stamp); }
+		}
+
+		ConcurrentItemGroup first = order < other.order ? this : other;
+		ConcurrentItemGroup second = first == this ? other : this;
+		long firstStamp = first.lockWrite();
+		try {
+			long secondStamp = second.lockWrite();
+			try { return operation.get(); }
+			finally { second.unlockWrite(secondStamp); }
+		} finally { first.unlockWrite(firstStamp); }
+	}
+
+	/**
+	 * Runs an operation while holding the write locks of every one of the groups.
+	 * The locks are acquired in the same global order as by move, so this cannot deadlock with it either.
+	 */
+	static <T> T lockedAll(Collection<ConcurrentItemGroup> groups, Supplier<T> operation) {
+		ConcurrentItemGroup[] ordered = groups.toArray(new ConcurrentItemGroup[0]);
+		Arrays.sort(ordered, Comparator.comparingLong(group -> group.order));
+		return lockedAll(ordered, 0, operation);
+	}
+
+	private static <T> T lockedAll(ConcurrentItemGroup[] groups, int index, Supplier<T> operation) {
+		if(index == groups.length) return operation.get();
+
+		long stamp = groups[index].lockWrite();
+		try { return lockedAll(groups, index + 1, operation); }
+		finally { groups[index].unlockWrite(stamp); }
+	}
+
+	/**
+	 * Acquires the write lock, which is reentrant for the thread holding it.
+	 * @return the stamp used to release the lock
+	 */
+	private long lockWrite() {
+		if(writer == Thread.currentThread()) {
+			holds++;
+			return 0;
+		}
+
+		long stamp = lock.writeLock();
+		writer = Thread.currentThread();
+		holds = 1;
+		return stamp;
+	}
+
+	private void unlockWrite(long stamp) {
+		if(--holds > 0) return;
+
+		writer = null;
+		lock.unlockWrite(stamp);
+	}
+
+	/**
+	 * Reads a value optimistically, without blocking writers, falling back to the read lock if a write intervened.
+	 */
+	private long readLong(LongSupplier read) {
+		if(writer == Thread.currentThread()) return read.getAsLong();
+
+		long stamp = lock.tryOptimisticRead();
+		if(stamp != 0) {
+			try {
+				long value = read.getAsLong();
+				if(lock.validate(stamp)) return value;
+			} catch(RuntimeException e) { /* observed a write in progress; retry under the read lock */ }
+		}
+
+		stamp = lock.readLock();
+		try { return read.getAsLong(); }
+		finally { lock.unlockRead(stamp); }
+	}
+
+	private boolean readBoolean(BooleanSupplier read) { return readLong(() -> read.getAsBoolean() ? 1 : 0) != 0; }
+
+	/**
+	 * Reads a value optimistically, like readLong, for reads that only walk bounded paths rather than the tree.
+	 */
+	private <T> T read(Supplier<T> read) {
+		if(writer == Thread.currentThread()) return read.get();
+
+		long stamp = lock.tryOptimisticRead();
+		if(stamp != 0) {
+			try {
+				T value = read.get();
+				if(lock.validate(stamp)) return value;
+			} catch(RuntimeException e) { /* observed a write in progress; retry under the read lock */ }
+		}
+
+		return readLocked(read);
+	}
+
+	private <T> T readLocked(Supplier<T> read) {
+		if(writer == Thread.currentThread()) return read.get();
+
+		long stamp = lock.readLock();
+		try { return read.get(); }
+		finally { lock.unlockRead(stamp); }
+	}
+}
@@ -1,6 +1,11 @@
 package pathMinder.core;
 
+import java.lang.reflect.Array;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
 
 /**
  * An Item that may contain other Items.
@@ -15,6 +20,8 @@ import java.util.*;
  * All methods inherited from the Set interface treat Containers as a tree;
  * all elements within a Container and its children are treated as elements of that container for the purpose of these methods.
  * Other methods exist for manipulating only the direct child elements of a Container.
+ * <p>
+ * Changes within a Container's sub-tree may be observed with a ContainerListener, rather than by polling.
  */
 public abstract class Container extends Item implements Set<Item> {
 
@@ -28,9 +35,9 @@ public abstract class Container extends Item implements Set<Item> {
 	 * @return the combined weight of all the items.
 	 */
 	public static float getWeight(Collection<? extends Item> items) {
-		float weight = 0.0f;
-		for(Item item : items) { weight += item.getWeight(); }
-		return weight;
+		long weight = 0;
+		for(Item item : items) { weight += item.getWeightUnits(); }
+		return Units.pounds(weight);
 	}
 
 	/**
@@ -41,54 +48,61 @@ public abstract class Container extends Item implements Set<Item> {
 	public static float getWeight(Container items) { return items.getWeight(); }
 
 	public static float getVolume(Collection<? extends Item> items) {
-		float volume = 0.0f;
-		for(Item item : items) { volume += item.getVolume(); }
-		return volume;
+		long volume = 0;
+		for(Item item : items) { volume += item.getVolumeUnits(); }
+		return Units.cubicFeet(volume);
 	}
 
 	public static float getVolume(Container items) { return items.getVolume(); }
 
-	private final HashSet<Item> contents;
+	//Containers with at least this many items are aggregated in parallel
+	private static final int PARALLEL_THRESHOLD = 1 << 13;
+
+	private static final Item[] EMPTY = new Item[0];
 
+	private static final ContainerListener[] NO_LISTENERS = new ContainerListener[0];
+
+	private final HashSet<Item> contents;
 
-	//limits on the amount a Container can hold
-	private final float maxWeight; //the maximum weight (in pounds)
-	private final float maxVolume; //the maximum volume (in cubic feet)
-	private final int maxCount; //the maximum number of items
 
-	private final boolean rigid; //a rigid container's volume does not change as it fills
+	//The limits on the amount a Container can hold are shared by all containers of the same ItemType.
+	//Cached totals of the entire sub-tree rooted at this container.
+	//These are kept current by propagating deltas up the tree whenever an item is added, removed or moved.
+	//Weight and volume are held in fixed-point Units, so the deltas cancel exactly and the totals never drift.
+	private long contentsWeight = 0;
+	private long contentsVolume = 0;
+	private int size = 0;
 
 	//Used to detect concurrent modifications.
-	//Incremented each time this container has its backing Set modified.
+	//Incremented each time the backing Set of this container, or of any container within it, is modified.
 	private int modCount = 0;
 
-	/**
-	 * Used to detect concurrent modifications.
-	 * It checks the total modification count of itself and all its children.
-	 * @return the sum of all the structural modifications to this container and its children
-	*/
-	private int getChildrenModCount() {
-		int childrenModCount = 0;
+	//Set while this container is managed by a ContentCache, which may evict its contents to a ContentStore.
+	private ContentCache.Entry lazy = null;
 
-		for(Item i : contents) {
-			if(i instanceof Container) {
-				childrenModCount += ((Container) i).modCount;
-			}
-		}
+	//Replaced, never modified, when a listener is added or removed, so delivery never allocates or fails.
+	private volatile ContainerListener[] listeners = NO_LISTENERS;
+
+	//Set while this container's sub-tree is indexed; see buildIndex().
+	private ContainerIndex index = null;
+	//The number of indexed containers anywhere, so that linking and unlinking skip their walk up the tree while there are none.
+	//propagate() checks each ancestor as it passes instead, so it costs unindexed trees nothing even while other trees are indexed.
+	static volatile int indexes = 0;
+
+	/**
+	 * @param type the type of this container, which specifies its weight, volume and count limits
+	 * @throws IllegalArgumentException if the type is not a container type
+	 */
+	protected Container(ItemType type) {
+		super(type);
+		if(!type.isContainer()) throw new IllegalArgumentException(String.format("%s is not a container type", type));
 
-		return childrenModCount;
+		contents = new LinkedHashSet<>();
 	}
 
 	protected Container(String name, float weight, float volume, int cost,
 						float maxWeight, float maxVolume, int maxCount, boolean rigid) {
-		super(name, weight, volume, cost);
-
-		this.maxWeight = maxWeight;
-		this.maxVolume = maxVolume;
-		this.maxCount = maxCount;
-		this.rigid = rigid;
-
-		contents = new LinkedHashSet<>();
+		this(ItemType.of(name, weight, volume, cost, maxWeight, maxVolume, maxCount, rigid));
 	}
 
 	/**
@@ -96,40 +110,50 @@ public abstract class Container extends Item implements Set<Item> {
 	 * @return the weight of this item and all of its contents.
 	 */
 	@Override
-	public float getWeight() { return super.getWeight() + getContentsWeight(); }
+	public long getWeightUnits() { return super.getWeightUnits() + getContentsWeightUnits(); }
 
 	/**
-	 * Calculates the weight of the container's contents.
-	 * This method will recursively traverse the entire contents of itself.
+	 * Returns the weight of the container's contents.
+	 * This total is cached and kept current as items enter and leave the sub-tree, so no traversal is required.
 	 * @return the weight of all of its contents.
 	 */
-	public float getContentsWeight() { 
-		float totalWeight = 0;
-		for(Item item : contents) {
-			totalWeight += item.getWeight();
-		}
-		return totalWeight;
-	}
+	public float getContentsWeight() { return Units.pounds(getContentsWeightUnits()); }
+
+	/**
+	 * @return the exact weight of all of its contents, in weight units
+	 * @see Units
+	 */
+	public long getContentsWeightUnits() { return contentsWeight; }
 
 	/**
-	 * Calculates the sum of the volume of this and its contents.
-	 * This method will recursively traverse the entire contents of itself.
+	 * Returns the sum of the volume of this and its contents.
 	 * A rigid container's volume is instead always calculated as though it were completely full
 	 * @return the volume of this item and all of its contents.
 	 */
 	@Override
-	public float getVolume() { return rigid ? super.getVolume() + maxVolume : super.getVolume() + getContentsVolume(); }
+	public long getVolumeUnits() {
+		ItemType type = getType();
+		return type.isRigid() ? type.getVolumeUnits() + type.getMaxVolumeUnits() : type.getVolumeUnits() + getContentsVolumeUnits();
+	}
 
-	public float getContentsVolume() {
-		float totalVolume = 0;
-		for(Item item : contents) {
-			totalVolume += item.getVolume();
-		}
+	/**
+	 * Returns the volume of the container's direct contents, as cached by the container.
+	 * @return the volume occupied within this container.
+	 */
+	public float getContentsVolume() { return Units.cubicFeet(getContentsVolumeUnits()); }
 
-		return totalVolume;
-	}
+	/**
+	 * @return the exact volume occupied within this container, in volume units
+	 * @see Units
+	 */
+	public long getContentsVolumeUnits() { return contentsVolume; }
 
-	public int getCount() { return contents.size(); }
+	public int getCount() { return count(); }
+
+	/**
+	 * @return a read-only view of the items directly within this container
+	 */
+	Set<Item> getContents() { return Collections.unmodifiableSet(contents()); }
 
 	/**
 	 * Checks if adding the specified item would violate any constraints.
@@ -139,11 +163,21 @@ public abstract class Container extends Item implements Set<Item> {
 	 * @throws NullPointerException if a null Item is supplied
 	 */
 	public boolean fits(Item item) {
+		long start = Metrics.start();
+		try { return admits(item); }
+		finally { Metrics.stop(Metrics.Operation.FITS, start); }
+	}
+
+	/**
+	 * The check behind fits(Item), used internally so that only callers' checks are counted by Metrics.
+	 */
+	private boolean admits(Item item) {
 		if(item == null) throw new NullPointerException(); //null item
+		ItemType type = getType();
 		if(
-			getContentsWeight() + item.getWeight() > maxWeight || //weight restriction
-			getContentsVolume() + item.getVolume() > maxVolume || //volume restriction
-			contents.size() >= maxCount || //count restriction
+			contentsWeight + item.getWeightUnits() > type.getMaxWeightUnits() || //weight restriction
+			contentsVolume + item.getVolumeUnits() > type.getMaxVolumeUnits() || //volume restriction
+			count() >= type.getMaxCount() || //count restriction
 			item instanceof Container && (item == this || ((Container) item).contains(this))) //self-containing restriction
 			return false;
 
@@ -163,99 +197,240 @@ public abstract class Container extends Item implements Set<Item> {
 	 */
 	@Override
 	public boolean add(Item newItem) throws TooManyItemsException, IllegalArgumentException {
-		if(newItem == null) throw new NullPointerException(); //null item
+		long start = Metrics.start();
+		try {
+			if(newItem == null) throw new NullPointerException(); //null item
+
+			//Item is already in a container, possibly this one
+			if(newItem.isContained())
+				return false;
+
+			//Check if the item can fit inside the container.
+			if(!admits(newItem)) {
+				Metrics.rejected(this, newItem);
+				throw new TooManyItemsException("Unable to add item to container.");
+			}
 
-		//Item is already in a container
-		if(newItem.isContained())
-			return false;
+			//success case
+			attach(newItem);
+			ContainerEvent.fire(ContainerEvent.Type.ADDED, newItem, null, this);
+			return true;
+		} finally { Metrics.stop(Metrics.Operation.ADD, start); }
+	}
 
-		//failure case
-		if(this.contains(newItem)) return false;
 
-		//Check if the item can fit inside the container.
-		if(!fits(newItem))
-			throw new TooManyItemsException("Unable to add item to container.");
+	/**
+	 * Adds every item in the collection if doing so would not violate any constraints.
+	 * <p>
+	 * The whole batch is checked against the weight, volume and count limits of this container in a single pass,
+	 * and is then applied atomically; either every eligible item is added or none are.
+	 * As with add(Item), items that are already in a container are ignored.
+	 * @param items the items being added
+	 * @return true if this container changed as a result of the call
+	 * @throws TooManyItemsException if any of the items cannot be added; the Container will not be modified,
+	 * and the offending items are available from TooManyItemsException.getRejected()
+	 * @throws NullPointerException if the collection or any of its elements are null
+	 */
+	@Override
+	public boolean addAll(Collection<? extends Item> items) throws TooManyItemsException {
+		long start = Metrics.start();
+		try {
+			if(items == null) throw new NullPointerException();
+
+			ItemType type = getType();
+			Set<Item> batch = Collections.newSetFromMap(new IdentityHashMap<>());
+			List<Item> rejected = new ArrayList<>();
+			long weight = 0, volume = 0;
+			int count = 0;
+
+			for(Item item : items) {
+				if(item == null) throw new NullPointerException(); //null item
+				if(item.isContained() || batch.contains(item)) continue; //Item is already in a container, or repeated
+
+				long itemWeight = item.getWeightUnits(), itemVolume = item.getVolumeUnits();
+				if(
+					contentsWeight + weight + itemWeight > type.getMaxWeightUnits() || //weight restriction
+					contentsVolume + volume + itemVolume > type.getMaxVolumeUnits() || //volume restriction
+					count() + batch.size() >= type.getMaxCount() || //count restriction
+					item instanceof Container && (item == this || ((Container) item).contains(this))) { //self-containing restriction
+					rejected.add(item);
+					continue;
+				}
 
-		//success case
-		newItem.setContained(true);
-		wasModified();
-		contents.add(newItem);
-		return true;
-	}
+				batch.add(item);
+				weight += itemWeight;
+				volume += itemVolume;
+				count += sizeOf(item);
+			}
 
+			if(!rejected.isEmpty()) {
+				for(Item item : rejected) Metrics.rejected(this, item);
+				throw new TooManyItemsException(String.format("Unable to add %d items to container.", rejected.size()), rejected);
+			}
+			if(batch.isEmpty()) return false;
 
-	@Override
-	public boolean addAll(Collection<? extends Item> items){ throw new UnsupportedOperationException(); }
+			for(Item item : batch) link(item);
+			propagate(weight, volume, count);
+			wasModified();
+
+			EventBatch events = EventBatch.open();
+			try {
+				for(Item item : batch) ContainerEvent.fire(ContainerEvent.Type.ADDED, item, null, this);
+			} finally { events.close(); }
+			return true;
+		} finally { Metrics.stop(Metrics.Operation.ADD, start); }
+	}
 
 	/**
 	 * Returns true if the specified item is within this item or any of its contents.
 	 * More formally, returns true if and only if o is contained within the sub-tree that has this as the root node.
+	 * <p>
+	 * Rather than searching the sub-tree, this walks up from o towards the root of its tree,
+	 * so it runs in O(depth) regardless of how many items this container holds.
 	 * @param o the object being searched for
 	 * @return true if the specified item is within this item or any of its contents
 	 */
 	@Override
 	public boolean contains(Object o) {
-		if(contents.contains(o)) return true; //check this for o
-		for(Item inner : contents) if(inner instanceof Container && ((Container) inner).contains(o)) return true; //check this's contents for o
+		if(!(o instanceof Item)) return false; //Containers only hold Items
+
+		for(Container c = ((Item) o).getContainer(); c != null; c = c.getContainer()) if(c == this) return true;
 
 		return false; //no dice
 	}
 
+	/**
+	 * Finds the path through the inventory tree from this container to the specified item.
+	 * The first element of the path is this container, and the last is the container that directly holds the item.
+	 * This runs in O(depth).
+	 * @param item the item being located
+	 * @return the containers between this and item, in order from this downwards,
+	 * or an empty list if the item is not within this container
+	 * @throws NullPointerException if a null Item is supplied
+	 */
+	public List<Container> locate(Item item) {
+		if(item == null) throw new NullPointerException(); //null item
+
+		LinkedList<Container> path = new LinkedList<>();
+		for(Container c = item.getContainer(); c != null; c = c.getContainer()) {
+			path.addFirst(c);
+			if(c == this) return path;
+		}
+
+		return Collections.emptyList(); //item is not within this container
+	}
+
 	/**
 	 * Returns the number of elements in this Container.
 	 * In other words, returns the total number of Items that have this Container as an ancestor in the inventory tree.
+	 * This count is cached, so no traversal is required.
 	 * <p>
 	 * Note: Container.size() does not count itself.
 	 * @return the total number of Items within this Container
 	 */
 	@Override
-	public int size() {
-		int size = contents.size();
-
-		for(Item item : contents) if(item instanceof Container) size += ((Container) item).size();
-
-		return size;
-	}
+	public int size() { return size; }
 
 
 	@Override
-	public boolean isEmpty() { return contents.isEmpty(); }
+	public boolean isEmpty() { return count() == 0; }
 
 	/**
 	 * Removes the specified element entirely from this inventory-tree structure,
 	 * making it and its contents into a new tree.
 	 * The item will be removed if it is contained anywhere within the sub-tree having this container as a root (not just a direct child).
+	 * This runs in O(depth).
 	 * @param o the item being removed
 	 * @throws NullPointerException if the specified element is null
 	 * @return true if the item was removed
 	 */
 	@Override
 	public boolean remove(Object o) {
-		if(o == null) throw new NullPointerException(); //null case
-		if(!(o instanceof Item)) return false; //Containers only hold Items
-
-		if(contents.remove(o)) { //base case
-			((Item) o).setContained(false);
-			wasModified();
+		long start = Metrics.start();
+		try {
+			if(o == null) throw new NullPointerException(); //null case
+			if(!contains(o)) return false;
+
+			Item item = (Item) o;
+			Container container = item.getContainer();
+			container.detach(item);
+			ContainerEvent.fire(ContainerEvent.Type.REMOVED, item, container, null);
 			return true;
-		}
+		} finally { Metrics.stop(Metrics.Operation.REMOVE, start); }
+	}
 
-		for(Item inner : contents) { //recursive case
-			if(inner instanceof Container && ((Container)inner).contains(o)) {
-				((Container) inner).remove(o);
-				return true;
-			}
-		}
+	/**
+	 * Removes every element of the collection from anywhere within this inventory-tree structure,
+	 * as though by remove(Object), but marks each modified container only once for the whole batch.
+	 * @param items the items being removed
+	 * @return true if this container changed as a result of the call
+	 * @throws NullPointerException if the specified collection is null
+	 */
+	@Override
+	public boolean removeAll(Collection<?> items) {
+		long start = Metrics.start();
+		try {
+			if(items == null) throw new NullPointerException();
+
+			Set<Container> modified = Collections.newSetFromMap(new IdentityHashMap<>());
+			EventBatch events = EventBatch.open();
+			try {
+				for(Object o : items) {
+					if(!contains(o)) continue;
+
+					Item item = (Item) o;
+					Container container = item.getContainer();
+					container.unlink(item);
+					container.propagate(-item.getWeightUnits(), -item.getVolumeUnits(), -sizeOf(item));
+					modified.add(container);
+					ContainerEvent.fire(ContainerEvent.Type.REMOVED, item, container, null);
+				}
 
-		return false;
+				for(Container container : modified) container.wasModified();
+			} finally { events.close(); }
+			return !modified.isEmpty();
+		} finally { Metrics.stop(Metrics.Operation.REMOVE, start); }
 	}
 
 	/**
-	 * Unsupported operation, call static Item.remove(Collection) instead.
-	 * @see Item
+	 * Removes every item within this inventory-tree structure that is not an element of the collection.
+	 * When a container is removed, its contents leave with it, even if they are elements of the collection.
+	 * Each modified container is marked only once for the whole batch.
+	 * @param items the items being retained
+	 * @return true if this container changed as a result of the call
+	 * @throws NullPointerException if the specified collection is null
 	 */
 	@Override
-	public boolean removeAll(Collection items) { throw new UnsupportedOperationException(); }
+	public boolean retainAll(Collection<?> items) {
+		if(items == null) throw new NullPointerException();
+
+		Set<Container> modified = Collections.newSetFromMap(new IdentityHashMap<>());
+		EventBatch events = EventBatch.open();
+		try {
+			retain(items instanceof Set ? items : new HashSet<>(items), modified);
+
+			for(Container container : modified) container.wasModified();
+		} finally { events.close(); }
+		return !modified.isEmpty();
+	}
+
+	private void retain(Collection<?> items, Set<Container> modified) {
+		for(Iterator<Item> it = contents().iterator(); it.hasNext();) {
+			Item item = it.next();
+
+			if(items.contains(item)) {
+				if(item instanceof Container) ((Container) item).retain(items, modified);
+				continue;
+			}
+
+			it.remove();
+			item.setContainer(null);
+			unindex(item);
+			propagate(-item.getWeightUnits(), -item.getVolumeUnits(), -sizeOf(item));
+			modified.add(this);
+			ContainerEvent.fire(ContainerEvent.Type.REMOVED, item, this, null);
+		}
+	}
 
 	/**
 	 * Instead of removing from the current container and adding to the new container,
@@ -268,26 +443,59 @@ public abstract class Container extends Item implements Set<Item> {
 	 */
 	public boolean move(Item item, Container newContainer)
 	{
-		if(item == null) throw new NullPointerException(); //null item
-		if(!contains(item)) return false; //Item not located in this container
-		if(!newContainer.fits(item)) return false; //Item will not fit in the new container
-
-		//If the requested is contained within a contained item
-		if(!contents.remove(item)) {
-			for(Item i : contents) {
-				if(i instanceof Container && ((Container) i).contains(i)) { //If the item contains the requested item
-					((Container) i).contents.remove(item); 					//Remove it from its contents, and stop checking further items
-					break;
-				}
-			}
+		long start = Metrics.start();
+		try {
+			if(item == null) throw new NullPointerException(); //null item
+			if(!contains(item)) return false; //Item not located in this container
+
+			return newContainer.transfer(item);
+		} finally { Metrics.stop(Metrics.Operation.MOVE, start); }
+	}
+
+	/**
+	 * Moves an item from its current container into this one, if it fits.
+	 * ConcurrentItemGroup overrides this to perform the check and the insertion atomically.
+	 * @param item an item within some container
+	 * @return true if the item was moved, or false if it will not fit in this container
+	 */
+	boolean transfer(Item item) {
+		if(!admits(item)) { //Item will not fit in this container
+			Metrics.rejected(this, item);
+			return false;
 		}
 
-		newContainer.contents.add(item);
-		wasModified();
-		newContainer.wasModified();
+		Container container = item.getContainer();
+		container.detach(item);
+		attach(item);
+		ContainerEvent.fire(ContainerEvent.Type.MOVED, item, container, this);
 		return true;
 	}
 
+	/**
+	 * Moves an item from wherever it is into this container without checking any constraints,
+	 * for callers that have already checked them, such as a Transaction.
+	 */
+	void place(Item item) {
+		Container container = item.getContainer();
+		if(container != null) container.detach(item);
+		attach(item);
+		ContainerEvent.fire(container == null ? ContainerEvent.Type.ADDED : ContainerEvent.Type.MOVED, item, container, this);
+	}
+
+	/**
+	 * @return a version stamp for this container's sub-tree, which changes whenever an item enters or leaves it
+	 */
+	int getModCount() { return modCount; }
+
+	/**
+	 * @return the root of the inventory tree that this container is in, which may be this container itself
+	 */
+	Container getRoot() {
+		Container root = this;
+		while(root.getContainer() != null) root = root.getContainer();
+		return root;
+	}
+
 	/**
 	 * Returns true iff all Objects in the passed container are within this container.
 	 * More formally, returns false if for any element o in items, this.contains(o) == false.
@@ -305,13 +513,226 @@ public abstract class Container extends Item implements Set<Item> {
 	}
 
 	/**
-	 * Returns an iterator over the entire sub-tree rooted at this item.
-	 * Container Iterators are fail-fast, and any concurrent modifications will cause the iterator to throw a ConcurrentModificationException.
+	 * Returns an iterator over the entire sub-tree rooted at this item, in pre-order.
+	 * Container Iterators are fail-fast, and any concurrent modifications will cause the iterator to throw a ConcurrentModificationException,
+	 * however deep within the sub-tree they occur.
+	 * Items may be removed through the iterator, along with their contents.
 	 * @return an iterator that will traverse the entire sub-tree rooted at this item.
 	 * @see ContainerIterator
 	 */
 	@Override
-	public ContainerIterator iterator() { return new ContainerIterator(this); }
+	public Iterator<Item> iterator() { return new ContainerIterator(this); }
+
+	/**
+	 * Returns an immutable, structurally-shared snapshot of this container and its entire contents.
+	 * <p>
+	 * Each container caches its latest snapshot, and every change within the tree discards the cached snapshots
+	 * on the path from the change to the root. So a snapshot of an unmodified tree is returned in O(1),
+	 * and after a change only the containers along the changed paths are copied; untouched sub-trees are shared.
+	 * Each copied container costs O(n) in the number of items directly within it, so wide containers are the expensive ones.
+	 * <p>
+	 * The snapshot itself may be read from any thread, but it must be taken by a thread that may safely read the container.
+	 * @return an immutable view of this container's sub-tree
+	 * @see Snapshot
+	 */
+	@Override
+	public Snapshot snapshot() {
+		Snapshot snapshot = getSnapshot();
+		if(snapshot != null) return snapshot;
+
+		Set<Item> contents = contents();
+		Snapshot[] children = new Snapshot[contents.size()];
+		int index = 0;
+		for(Item item : contents) children[index++] = item.snapshot();
+
+		snapshot = new Snapshot(this, children);
+		setSnapshot(snapshot);
+		return snapshot;
+	}
+
+	/**
+	 * Returns a spliterator over the entire sub-tree rooted at this item, in pre-order.
+	 * The spliterator splits at sub-container boundaries, using the cached size of each sub-container to balance the halves,
+	 * so parallel streams over a Container divide their work evenly and know exactly how many items each half holds.
+	 * Like Container Iterators, it is fail-fast.
+	 * @return a spliterator that will traverse the entire sub-tree rooted at this item.
+	 */
+	@Override
+	public Spliterator<Item> spliterator() { return new ContainerSpliterator(this); }
+
+	/**
+	 * Calculates the total cost of the items within this container, not including the container itself.
+	 * Large containers are traversed in parallel.
+	 * @return the sum of the cost of every item within this container
+	 */
+	public float getContentsCost() { return getContentsCostUnits(); }
+
+	/**
+	 * Calculates the exact total cost of the items within this container, as getContentsCost() does.
+	 * @return the sum of the cost of every item within this container, in copper pieces
+	 */
+	public long getContentsCostUnits() {
+		long start = Metrics.start();
+		try { return aggregate().mapToLong(Item::getCostUnits).sum(); }
+		finally { Metrics.stopTraversal(this, start); }
+	}
+
+	/**
+	 * Sums a value over every item within this container, not including the container itself.
+	 * Large containers are traversed in parallel on the common fork-join pool,
+	 * so the function must be safe to call from multiple threads, and the container must not be modified meanwhile.
+	 * <p>
+	 * Note that the weight and volume of a container already include its contents,
+	 * so summing Item::getWeight would count nested items more than once; use getContentsWeight() instead.
+	 * @param value the value of each item
+	 * @return the sum of value over every element e such that this.contains(e)
+	 */
+	public double sum(ToDoubleFunction<? super Item> value) {
+		long start = Metrics.start();
+		try { return aggregate().mapToDouble(value).sum(); }
+		finally { Metrics.stopTraversal(this, start); }
+	}
+
+	/**
+	 * Counts the items within this container that match a predicate.
+	 * Large containers are traversed in parallel, as with sum(ToDoubleFunction).
+	 * @param predicate the condition being counted
+	 * @return the number of elements e such that this.contains(e) and predicate.test(e)
+	 */
+	public long count(Predicate<? super Item> predicate) {
+		long start = Metrics.start();
+		try { return aggregate().filter(predicate).count(); }
+		finally { Metrics.stopTraversal(this, start); }
+	}
+
+	private Stream<Item> aggregate() { return size >= PARALLEL_THRESHOLD ? parallelStream() : stream(); }
+
+	/**
+	 * Indexes this container's sub-tree by name, class, weight, cost and remaining capacity,
+	 * so that the find methods of this container, and of every container within it, touch only the items they return.
+	 * The index is kept current as the sub-tree changes, at a cost of O(depth) per change for each indexed ancestor,
+	 * and holds every item in the sub-tree in memory, so it should not be combined with a ContentCache.
+	 * Building the index traverses the sub-tree once; building it again has no effect.
+	 */
+	public void buildIndex() {
+		if(index != null) return;
+
+		ContainerIndex index = new ContainerIndex();
+		for(Item item : contents()) index.add(item);
+		synchronized(Container.class) { indexes++; }
+		this.index = index;
+	}
+
+	/**
+	 * Discards the index built by buildIndex(), if any.
+	 */
+	public void dropIndex() {
+		if(index == null) return;
+
+		index = null;
+		synchronized(Container.class) { indexes--; }
+	}
+
+	public boolean isIndexed() { return index != null; }
+
+	/**
+	 * @param name the name being searched for
+	 * @return every item within this container with the given name
+	 */
+	public List<Item> findByName(String name) {
+		if(name == null) throw new NullPointerException();
+		Container indexed = indexed();
+		return indexed == null ? scan(item -> name.equals(item.getName())) : within(indexed, indexed.index.byName(name));
+	}
+
+	/**
+	 * @param type the class being searched for
+	 * @return every item within this container that is an instance of the given class
+	 */
+	public <T extends Item> List<T> findByClass(Class<T> type) {
+		if(type == null) throw new NullPointerException();
+		Container indexed = indexed();
+		if(indexed != null) return within(indexed, indexed.index.byClass(type));
+
+		List<T> found = new ArrayList<>();
+		for(Item item : tree()) if(type.isInstance(item)) found.add(type.cast(item));
+		return found;
+	}
+
+	/**
+	 * @return every item within this container weighing between min and max, inclusive, from lightest to heaviest
+	 */
+	public List<Item> findByWeight(float min, float max) {
+		Container indexed = indexed();
+		long low = Units.weight(min), high = Units.weight(max);
+		if(indexed != null) return within(indexed, indexed.index.byWeight(low, high));
+
+		List<Item> found = scan(item -> item.getWeightUnits() >= low && item.getWeightUnits() <= high);
+		found.sort(Comparator.comparingLong(Item::getWeightUnits));
+		return found;
+	}
+
+	/**
+	 * @return every item within this container costing between min and max, inclusive, from cheapest to most expensive
+	 */
+	public List<Item> findByCost(float min, float max) {
+		Container indexed = indexed();
+		long low = (long) Math.ceil(min), high = (long) Math.floor(max);
+		if(indexed != null) return within(indexed, indexed.index.byCost(low, high));
+
+		List<Item> found = scan(item -> item.getCostUnits() >= low && item.getCostUnits() <= high);
+		found.sort(Comparator.comparingLong(Item::getCostUnits));
+		return found;
+	}
+
+	/**
+	 * Finds the containers that could still hold an item of the given weight and volume, ignoring their count limits.
+	 * @return every container within this container with at least the given weight and volume left,
+	 * from the least remaining volume to the most
+	 */
+	public List<Container> findByCapacity(float weight, float volume) {
+		Container indexed = indexed();
+		long needWeight = Units.weight(weight), needVolume = Units.volume(volume);
+		if(indexed != null) return within(indexed, indexed.index.byCapacity(needWeight, needVolume));
+
+		List<Container> found = new ArrayList<>();
+		for(Item item : tree()) {
+			if(!(item instanceof Container)) continue;
+			Container container = (Container) item;
+			if(ContainerIndex.freeWeight(container) >= needWeight && ContainerIndex.freeVolume(container) >= needVolume) found.add(container);
+		}
+		found.sort(Comparator.comparingLong(ContainerIndex::freeVolume));
+		return found;
+	}
+
+	/**
+	 * @return the nearest indexed container at or above this one, or null if there is none
+	 */
+	private Container indexed() {
+		if(indexes == 0) return null;
+		for(Container c = this; c != null; c = c.getContainer()) if(c.index != null) return c;
+		return null;
+	}
+
+	/**
+	 * Narrows the results of an ancestor's index down to this container's sub-tree.
+	 */
+	private <T extends Item> List<T> within(Container indexed, List<T> found) {
+		if(indexed != this) found.removeIf(item -> !contains(item));
+		return found;
+	}
+
+	private List<Item> scan(Predicate<? super Item> predicate) {
+		List<Item> found = new ArrayList<>();
+		for(Item item : tree()) if(predicate.test(item)) found.add(item);
+		return found;
+	}
+
+	/**
+	 * The sub-tree as walked by this class's own iterator, rather than by an overridden iterator(),
+	 * so that a subclass may scan it under a lock it already holds without re-entering its public methods.
+	 */
+	private Iterable<Item> tree() { return () -> new ContainerIterator(this); }
 
 	/**
 	 * Returns an array containing every element e such that this.contains(e).
@@ -319,63 +740,452 @@ public abstract class Container extends Item implements Set<Item> {
 	 */
 	@Override
 	public Object[] toArray() {
-		int size = size();
-		Item[] newArray = new Item[size];
+		long start = Metrics.start();
+		try {
+			int size = size();
+			Item[] newArray = new Item[size];
 
-		ContainerIterator it = this.iterator();
-		for(int index = 0; index < size; index++) newArray[index] = it.next();
+			ContainerIterator it = new ContainerIterator(this);
+			for(int index = 0; index < size; index++) newArray[index] = it.next();
 
-		return newArray;
+			return newArray;
+		} finally { Metrics.stopTraversal(this, start); }
 	}
 
-	//TODO: Implement public <T> T[] toArray(T[] a)
+	/**
+	 * Returns an array containing every element e such that this.contains(e),
+	 * using the specified array if it is large enough.
+	 * @param a the array into which the elements are stored, if it is big enough
+	 * @return an array containing every element e such that this.contains(e)
+	 * @throws ArrayStoreException if the component type of a is not a supertype of every element
+	 * @throws NullPointerException if the specified array is null
+	 */
 	@Override
-	public <T> T[] toArray(T[] a) { throw new UnsupportedOperationException(); }
+	@SuppressWarnings("unchecked")
+	public <T> T[] toArray(T[] a) {
+		long start = Metrics.start();
+		try {
+			int size = size();
+			T[] newArray = a.length >= size ? a : (T[]) Array.newInstance(a.getClass().getComponentType(), size);
+
+			ContainerIterator it = new ContainerIterator(this);
+			for(int index = 0; index < size; index++) newArray[index] = (T) it.next();
+			if(newArray.length > size) newArray[size] = null;
+
+			return newArray;
+		} finally { Metrics.stopTraversal(this, start); }
+	}
 
+	/**
+	 * Removes the entire contents of this container, making each direct child the root of a new tree.
+	 * This runs in time proportional to the number of direct children, regardless of how deeply they are nested.
+	 */
 	@Override
-	public void clear(){ throw new UnsupportedOperationException(); }
+	public void clear() {
+		if(count() == 0) return;
 
-	@Override
-	public boolean retainAll(Collection<?> c) { throw new UnsupportedOperationException(); }
+		Set<Item> contents = contents();
+		Item[] removed = ContainerEvent.listening == 0 ? EMPTY : contents.toArray(EMPTY);
+		for(Item item : contents) {
+			item.setContainer(null);
+			unindex(item);
+		}
+		contents.clear();
+		propagate(-contentsWeight, -contentsVolume, -size);
+		wasModified();
+
+		EventBatch events = EventBatch.open();
+		try {
+			for(Item item : removed) ContainerEvent.fire(ContainerEvent.Type.REMOVED, item, this, null);
+		} finally { events.close(); }
+	}
+
+	/**
+	 * Registers a listener to be notified of every change within this container's sub-tree,
+	 * including changes to the contents of nested containers, which bubble up to every ancestor.
+	 * @param listener the listener being added
+	 * @see ContainerEvent
+	 */
+	public void addListener(ContainerListener listener) {
+		if(listener == null) throw new NullPointerException();
+
+		synchronized(ContainerEvent.class) {
+			ContainerListener[] listeners = Arrays.copyOf(this.listeners, this.listeners.length + 1);
+			listeners[listeners.length - 1] = listener;
+			if(this.listeners.length == 0) ContainerEvent.listening++;
+			this.listeners = listeners;
+		}
+	}
+
+	/**
+	 * @param listener the listener being removed
+	 * @return true if the listener was registered with this container
+	 */
+	public boolean removeListener(ContainerListener listener) {
+		synchronized(ContainerEvent.class) {
+			List<ContainerListener> listeners = new ArrayList<>(Arrays.asList(this.listeners));
+			if(!listeners.remove(listener)) return false;
+
+			this.listeners = listeners.isEmpty() ? NO_LISTENERS : listeners.toArray(NO_LISTENERS);
+			if(listeners.isEmpty()) ContainerEvent.listening--;
+			return true;
+		}
+	}
+
+	void notifyListeners(ContainerEvent event) {
+		for(ContainerListener listener : listeners) listener.containerChanged(event);
+	}
 
 	/**
 	 * Every time this container's backing Set is modified,
 	 * its modCount and the modCount of all it's ancestor Containers are incremented.
 	 * This allows any iterator's to trivially detect any concurrent modification to it or it's children.
 	 */
-	private void wasModified() { modCount++; }
+	private void wasModified() {
+		for(Container c = this; c != null; c = c.getContainer()) c.modCount++;
+	}
+
+	/**
+	 * Inserts an item as a direct child of this container, without checking any constraints,
+	 * and propagates the change in weight, volume and size to every ancestor.
+	 * @param item an item that is not currently in any container
+	 */
+	private void attach(Item item) {
+		link(item);
+		propagate(item.getWeightUnits(), item.getVolumeUnits(), sizeOf(item));
+		wasModified();
+	}
+
+	/**
+	 * Removes a direct child of this container and propagates the change in weight, volume and size to every ancestor.
+	 * @param item an item whose container is this
+	 */
+	private void detach(Item item) {
+		unlink(item);
+		propagate(-item.getWeightUnits(), -item.getVolumeUnits(), -sizeOf(item));
+		wasModified();
+	}
+
+	/**
+	 * Inserts items read from a trusted source, such as a save file, as direct children of this container,
+	 * without checking any constraints. The totals are propagated once for the whole batch.
+	 * @param items items that are not currently in any container
+	 */
+	void restore(Collection<? extends Item> items) {
+		if(items.isEmpty()) return;
+
+		long weight = 0, volume = 0;
+		int count = 0;
+		for(Item item : items) {
+			link(item);
+			weight += item.getWeightUnits();
+			volume += item.getVolumeUnits();
+			count += sizeOf(item);
+		}
+		propagate(weight, volume, count);
+		wasModified();
+	}
+
+	/**
+	 * Accommodates a change in the weight or volume of one of this container's direct contents,
+	 * such as an ItemStack changing quantity, and propagates it to every ancestor.
+	 * Containers with limits of their own, such as an Inventory, override this to check them too.
+	 * @param weight the change in weight of the item, in weight units
+	 * @param volume the change in volume of the item, in volume units
+	 * @throws TooManyItemsException if the change would violate the weight or volume constraints of this container
+	 */
+	void resize(long weight, long volume) throws TooManyItemsException {
+		if(contentsWeight + weight > getType().getMaxWeightUnits() || contentsVolume + volume > getType().getMaxVolumeUnits()) {
+			Metrics.rejected(this, null);
+			throw new TooManyItemsException("Unable to resize item within container.");
+		}
+
+		propagate(weight, volume, 0);
+	}
+
+	/**
+	 * Returns the items directly within this container, first loading them from their ContentStore if they were evicted.
+	 * Every access to the contents goes through here, except those that only need their number.
+	 */
+	private Set<Item> contents() {
+		if(lazy != null) lazy.access(this);
+		return contents;
+	}
 
+	/**
+	 * @return the number of items directly within this container, which does not require loading evicted contents
+	 */
+	private int count() { return lazy != null && lazy.isEvicted() ? lazy.getCount() : contents.size(); }
+
+	ContentCache.Entry getLazy() { return lazy; }
+
+	void setLazy(ContentCache.Entry lazy) { this.lazy = lazy; }
+
+	/**
+	 * Discards the items directly within this container, along with their sub-trees, without updating any cached totals,
+	 * so that they can be loaded again later. The discarded items are detached from this container.
+	 * @return the discarded items
+	 */
+	List<Item> unload() {
+		List<Item> unloaded = new ArrayList<>(contents);
+		for(Item item : unloaded) item.setContainer(null);
+		contents.clear();
+		for(Container c = this; c != null; c = c.getContainer()) c.setSnapshot(null); //snapshots hold the discarded items
+		wasModified();
+		return unloaded;
+	}
+
+	/**
+	 * Reinstates items discarded by unload(), without updating any cached totals, which already account for them.
+	 */
+	void reload(Collection<? extends Item> items) {
+		for(Item item : items) {
+			contents.add(item);
+			item.setContainer(this);
+		}
+	}
+
+	/**
+	 * Makes the item a direct child of this container without updating any cached totals, though it is indexed.
+	 */
+	private void link(Item item) {
+		contents().add(item);
+		item.setContainer(this);
+		if(indexes != 0) for(Container c = this; c != null; c = c.getContainer()) if(c.index != null) c.index.add(item);
+	}
+
+	/**
+	 * Removes a direct child of this container without updating any cached totals, though it is unindexed.
+	 */
+	private void unlink(Item item) {
+		contents().remove(item);
+		item.setContainer(null);
+		unindex(item);
+	}
+
+	/**
+	 * Drops an item that has just left this container, and its contents, from the indexes of this container and its ancestors.
+	 */
+	private void unindex(Item item) {
+		if(indexes != 0) for(Container c = this; c != null; c = c.getContainer()) if(c.index != null) c.index.remove(item);
+	}
+
+	/**
+	 * Re-keys an item whose weight, cost or remaining capacity has changed in the indexes of its ancestors.
+	 */
+	static void reindex(Item item) {
+		if(indexes != 0) for(Container c = item.getContainer(); c != null; c = c.getContainer()) if(c.index != null) c.index.update(item);
+	}
+
+	/**
+	 * Applies a change in contents to the cached totals of this container and each of its ancestors,
+	 * discarding their cached snapshots. This is O(depth) in the inventory tree.
+	 * Volume stops propagating at the first rigid container, as its volume does not change as it fills.
+	 * <p>
+	 * The containers on the path have changed weight and free capacity, so each indexed ancestor met on the way up
+	 * re-keys the path below it, which is already up to date by then. Trees without an index pay nothing for this,
+	 * and an indexed tree pays O(depth) per indexed ancestor.
+	 */
+	private void propagate(long weight, long volume, int count) {
+		int depth = 0;
+		for(Container c = this; c != null; c = c.getContainer(), depth++) {
+			c.contentsWeight += weight;
+			c.contentsVolume += volume;
+			c.size += count;
+			c.setSnapshot(null);
+			if(weight != 0) c.weightChanged();
+			if(c.getType().isRigid()) volume = 0;
+			if(c.index != null) for(Container below = this; below != c; below = below.getContainer()) c.index.update(below);
+		}
+		Metrics.depth(depth);
+	}
+
+	/**
+	 * Called after the weight of this container's contents changes, including changes deep within its sub-tree.
+	 * The cached totals are already up to date when this is called.
+	 */
+	void weightChanged() {}
+
+	/**
+	 * @return the number of items an item accounts for in the size of a container; itself and its contents, if any.
+	 */
+	private static int sizeOf(Item item) { return item instanceof Container ? 1 + ((Container) item).size : 1; }
+
+	/**
+	 * A pre-order iterator over a sub-tree.
+	 * Rather than nesting an iterator per sub-container, it keeps an explicit stack of iterators over each level of contents,
+	 * and compares a single version stamp, the modCount of the root container, on each step.
+	 */
 	private class ContainerIterator implements Iterator<Item> {
 
-		private final Iterator<Item> contents;
+		private final Container container;
 		private int modCount;
-		private Container container;
-		private ContainerIterator currentChild = null;
+
+		@SuppressWarnings("unchecked")
+		private Iterator<Item>[] stack = (Iterator<Item>[]) new Iterator<?>[4];
+		private int depth = 0;
+
+		private Item lastReturned = null;
+		private Iterator<Item> lastIterator = null; //the iterator that returned lastReturned
+		private Iterator<Item> lastChildren = null; //the iterator pushed for the contents of lastReturned, if any
+
 		ContainerIterator(Container container) {
 			this.container = container;
-			contents = container.contents.iterator();
-			modCount = container.modCount + container.getChildrenModCount();
+			modCount = container.modCount;
+			if(container.count() != 0) stack[depth++] = container.contents().iterator();
 		}
 
 		@Override
 		public boolean hasNext() {
-			if(modCount != container.modCount + container.getChildrenModCount()) throw new ConcurrentModificationException();
-			return contents.hasNext() || currentChild != null && currentChild.hasNext();
+			if(modCount != container.modCount) throw new ConcurrentModificationException();
+			while(depth > 0 && !stack[depth - 1].hasNext()) stack[--depth] = null; //discard exhausted levels
+			return depth > 0;
 		}
 
 		@Override
 		public Item next() {
-			if(modCount != container.modCount + container.getChildrenModCount()) throw new ConcurrentModificationException();
-			if(currentChild != null && currentChild.hasNext()) return currentChild.next(); //return next in current child, if exists
+			if(!hasNext()) throw new NoSuchElementException();
+
+			lastIterator = stack[depth - 1];
+			lastReturned = lastIterator.next();
+			lastChildren = null;
+
+			if(lastReturned instanceof Container && ((Container) lastReturned).count() != 0) {
+				if(depth == stack.length) stack = Arrays.copyOf(stack, 2 * depth);
+				stack[depth++] = lastChildren = ((Container) lastReturned).contents().iterator();
+			}
+
+			return lastReturned;
+		}
+
+		/**
+		 * Removes the last item returned by this iterator from its container, along with its contents,
+		 * which will not be traversed.
+		 */
+		@Override
+		public void remove() {
+			if(lastReturned == null) throw new IllegalStateException();
+			if(modCount != container.modCount) throw new ConcurrentModificationException();
+
+			if(lastChildren != null && depth > 0 && stack[depth - 1] == lastChildren) stack[--depth] = null; //skip the removed contents
+
+			Item item = lastReturned;
+			Container parent = item.getContainer();
+			lastIterator.remove();
+			item.setContainer(null);
+			parent.unindex(item);
+			parent.propagate(-item.getWeightUnits(), -item.getVolumeUnits(), -sizeOf(item));
+			parent.wasModified();
+
+			modCount = container.modCount;
+			lastReturned = null;
+			lastChildren = null;
+			ContainerEvent.fire(ContainerEvent.Type.REMOVED, item, parent, null);
+		}
+	}
 
-			//currentChild is Empty
-			if(!contents.hasNext()) throw new NoSuchElementException(); //So is content, throw exception
+	/**
+	 * A pre-order spliterator over a sub-tree.
+	 * Each element of its range is returned followed by its contents.
+	 * When only one container is left in the range, it is opened: it becomes the head,
+	 * which is returned without its contents, and its contents become the new range.
+	 */
+	private class ContainerSpliterator implements Spliterator<Item> {
 
-			Item nextItem = contents.next();
+		private final Container container; //the root of the whole traversal
+		private final int modCount;
 
-			if(nextItem instanceof Container) currentChild = ((Container) nextItem).iterator();
+		private Item head; //returned before the range, without its contents
+		private Item[] items;
+		private int index;
+		private int fence;
+		private ContainerIterator current = null; //the contents of the last item taken from the range
+		private long remaining; //the exact number of items left to traverse
 
-			return nextItem;
+		ContainerSpliterator(Container container) {
+			this(container, container.modCount, null, container.contents().toArray(EMPTY), 0, container.count(), container.size);
 		}
+
+		private ContainerSpliterator(Container container, int modCount, Item head, Item[] items, int index, int fence, long remaining) {
+			this.container = container;
+			this.modCount = modCount;
+			this.head = head;
+			this.items = items;
+			this.index = index;
+			this.fence = fence;
+			this.remaining = remaining;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super Item> action) {
+			if(action == null) throw new NullPointerException();
+			if(modCount != container.modCount) throw new ConcurrentModificationException();
+
+			Item item;
+			if(head != null) {
+				item = head;
+				head = null;
+			} else if(current != null && current.hasNext()) {
+				item = current.next();
+			} else if(index < fence) {
+				item = items[index++];
+				current = item instanceof Container && ((Container) item).count() != 0 ? new ContainerIterator((Container) item) : null;
+			} else {
+				return false;
+			}
+
+			remaining--;
+			action.accept(item);
+			return true;
+		}
+
+		@Override
+		public Spliterator<Item> trySplit() {
+			if(modCount != container.modCount) throw new ConcurrentModificationException();
+			if(current != null && current.hasNext()) return null; //part way through a sub-tree
+			current = null;
+
+			int count = fence - index;
+			if(count == 0) return null;
+
+			if(count == 1) {
+				Item only = items[index];
+				if(!(only instanceof Container) || ((Container) only).count() == 0) return null;
+
+				if(head != null) { //hand off the head, so the last container can be opened by a later split
+					Spliterator<Item> prefix = new ContainerSpliterator(container, modCount, head, EMPTY, 0, 0, 1);
+					head = null;
+					remaining--;
+					return prefix;
+				}
+
+				//open the container in place; its contents take over the range, so the remaining count is unchanged
+				head = only;
+				items = ((Container) only).contents().toArray(EMPTY);
+				index = 0;
+				fence = items.length;
+				return trySplit();
+			}
+
+			//split the range where the prefix holds roughly half of the remaining items
+			long target = remaining / 2;
+			long prefixSize = head != null ? 1 : 0;
+			int mid = index;
+			do {
+				prefixSize += sizeOf(items[mid++]);
+			} while(mid < fence - 1 && prefixSize < target);
+
+			Spliterator<Item> prefix = new ContainerSpliterator(container, modCount, head, items, index, mid, prefixSize);
+			head = null;
+			index = mid;
+			remaining -= prefixSize;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() { return remaining; }
+
+		@Override
+		public int characteristics() { return ORDERED | DISTINCT | NONNULL | SIZED | SUBSIZED; }
 	}
 }
@@ -0,0 +1,114 @@
+package pathMinder.core;
+
+import java.util.Arrays;
+
+/**
+ * A change to the contents of a Container: an item being added, removed, moved, or changed in place.
+ * <p>
+ * Events bubble up the inventory tree; every listener on the container that changed, or on any of its ancestors, receives the event.
+ * When an item moves, the listeners on both its old and new containers receive a single MOVED event,
+ * and a listener on a common ancestor of the two receives it only once.
+ * <p>
+ * Events are delivered synchronously, on the thread that made the change, once the change is complete,
+ * unless an EventBatch is open on that thread, in which case they are coalesced and delivered when it closes.
+ * A batched event still reaches the ancestors its containers had when the change was made,
+ * even if the containers have since left their trees.
+ * Nothing is created or delivered while no container has a listener.
+ *
+ * @see ContainerListener
+ * @see EventBatch
+ */
+public final class ContainerEvent {
+
+	public enum Type {
+		ADDED, //the item entered the tree; getFrom() is null
+		REMOVED, //the item left the tree; getTo() is null
+		MOVED, //the item moved between containers
+		CHANGED //the item changed in place, such as an ItemStack changing quantity; getFrom() and getTo() are its container
+	}
+
+	//The number of containers with at least one listener. Only modified while synchronized on ContainerEvent.class.
+	static volatile int listening = 0;
+
+	private final Type type;
+	private final Item item;
+	private final Container from;
+	private final Container to;
+
+	ContainerEvent(Type type, Item item, Container from, Container to) {
+		this.type = type;
+		this.item = item;
+		this.from = from;
+		this.to = to;
+	}
+
+	public Type getType() { return type; }
+
+	public Item getItem() { return item; }
+
+	/**
+	 * @return the container that the item was directly within before the change, or null if it was added
+	 */
+	public Container getFrom() { return from; }
+
+	/**
+	 * @return the container that the item is directly within after the change, or null if it was removed
+	 */
+	public Container getTo() { return to; }
+
+	@Override
+	public String toString() { return String.format("%s %s (%s -> %s)", type, item, from, to); }
+
+	/**
+	 * Reports a change to the listeners of the affected containers, or to the open EventBatch, if there is one.
+	 */
+	static void fire(Type type, Item item, Container from, Container to) {
+		if(listening == 0) return; //no one to tell
+
+		ContainerEvent event = new ContainerEvent(type, item, from, to);
+		EventBatch batch = EventBatch.current();
+		if(batch != null) batch.record(event);
+		else event.deliver();
+	}
+
+	/**
+	 * Notifies the listeners of the new container and its ancestors, then those of the old container and its ancestors,
+	 * skipping any that were already notified.
+	 */
+	void deliver() {
+		for(Container c = to; c != null; c = c.getContainer()) c.notifyListeners(this);
+		for(Container c = from; c != null && !isWithin(to, c); c = c.getContainer()) c.notifyListeners(this);
+	}
+
+	/**
+	 * Delivers a batched event to ancestor chains captured by path() when the change was made.
+	 */
+	void deliver(Container[] toPath, Container[] fromPath) {
+		for(Container c : toPath) c.notifyListeners(this);
+		for(Container c : fromPath) {
+			if(Arrays.asList(toPath).contains(c)) break; //a common ancestor, already notified along with those above it
+			c.notifyListeners(this);
+		}
+	}
+
+	/**
+	 * @return the container and each of its ancestors, from the bottom up, or an empty array if it is null
+	 */
+	static Container[] path(Container container) {
+		int depth = 0;
+		for(Container c = container; c != null; c = c.getContainer()) depth++;
+
+		Container[] path = new Container[depth];
+		int index = 0;
+		for(Container c = container; c != null; c = c.getContainer()) path[index++] = c;
+		return path;
+	}
+
+	/**
+	 * @return true if container is ancestor or is one of its ancestors
+	 */
+	private static boolean isWithin(Container container, Container ancestor) {
+		for(Container c = container; c != null; c = c.getContainer()) if(c == ancestor) return true;
+		return false;
+	}
+}
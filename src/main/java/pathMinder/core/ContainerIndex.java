@@ -0,0 +1,148 @@
+package pathMinder.core;
+
+import java.util.*;
+
+/**
+ * Secondary indexes over the sub-tree of a Container, kept up to date as the sub-tree changes.
+ * <p>
+ * Items are indexed by name and by class, and ordered by weight and cost, in exact Units;
+ * containers are also ordered by their remaining volume, and filtered by their remaining weight when queried.
+ * Each lookup touches only the matching items, rather than the whole sub-tree.
+ * <p>
+ * Every item is referred to by identity, so an index never depends on Item.equals.
+ * The indexed container itself is not indexed, consistent with Container.contains(Object).
+ *
+ * @see Container#buildIndex()
+ */
+final class ContainerIndex {
+
+	/**
+	 * Items ordered by a key that may change, such as the weight of a container as it fills.
+	 */
+	private static final class RangeIndex<T extends Item> {
+		private final TreeMap<Long, Set<T>> tree = new TreeMap<>();
+		private final Map<T, Long> keys = new IdentityHashMap<>();
+
+		void put(T item, long key) {
+			Long old = keys.put(item, key);
+			if(old != null) {
+				if(old == key) return;
+				unbucket(old, item);
+			}
+			tree.computeIfAbsent(key, k -> identitySet()).add(item);
+		}
+
+		void remove(T item) {
+			Long old = keys.remove(item);
+			if(old != null) unbucket(old, item);
+		}
+
+		/**
+		 * Adds every item whose key is between min and max, inclusive, to the result, in ascending order of key.
+		 */
+		void range(long min, long max, Collection<? super T> result) {
+			if(min > max) return;
+			for(Set<T> bucket : tree.subMap(min, true, max, true).values()) result.addAll(bucket);
+		}
+
+		NavigableMap<Long, Set<T>> from(long min) { return tree.tailMap(min, true); }
+
+		private void unbucket(Long key, T item) {
+			Set<T> bucket = tree.get(key);
+			bucket.remove(item);
+			if(bucket.isEmpty()) tree.remove(key);
+		}
+	}
+
+	private final Map<String, Set<Item>> names = new HashMap<>();
+	private final Map<Class<?>, Set<Item>> classes = new HashMap<>();
+	private final RangeIndex<Item> weights = new RangeIndex<>();
+	private final RangeIndex<Item> costs = new RangeIndex<>();
+	private final RangeIndex<Container> freeVolumes = new RangeIndex<>();
+
+	/**
+	 * Indexes an item that has entered the sub-tree, along with its contents.
+	 */
+	void add(Item item) {
+		put(item);
+		if(item instanceof Container) for(Item child : (Container) item) put(child);
+	}
+
+	/**
+	 * Drops an item that has left the sub-tree, along with its contents.
+	 */
+	void remove(Item item) {
+		drop(item);
+		if(item instanceof Container) for(Item child : (Container) item) drop(child);
+	}
+
+	/**
+	 * Re-keys an item whose weight, cost or remaining capacity may have changed.
+	 */
+	void update(Item item) {
+		weights.put(item, item.getWeightUnits());
+		costs.put(item, item.getCostUnits());
+		if(item instanceof Container) freeVolumes.put((Container) item, freeVolume((Container) item));
+	}
+
+	List<Item> byName(String name) {
+		Set<Item> items = names.get(name);
+		return items == null ? new ArrayList<>() : new ArrayList<>(items);
+	}
+
+	<T extends Item> List<T> byClass(Class<T> type) {
+		List<T> result = new ArrayList<>();
+		for(Map.Entry<Class<?>, Set<Item>> entry : classes.entrySet())
+			if(type.isAssignableFrom(entry.getKey())) for(Item item : entry.getValue()) result.add(type.cast(item));
+		return result;
+	}
+
+	List<Item> byWeight(long min, long max) {
+		List<Item> result = new ArrayList<>();
+		weights.range(min, max, result);
+		return result;
+	}
+
+	List<Item> byCost(long min, long max) {
+		List<Item> result = new ArrayList<>();
+		costs.range(min, max, result);
+		return result;
+	}
+
+	/**
+	 * @return every container with at least the given weight and volume left, in ascending order of remaining volume
+	 */
+	List<Container> byCapacity(long weight, long volume) {
+		List<Container> result = new ArrayList<>();
+		for(Set<Container> bucket : freeVolumes.from(volume).values())
+			for(Container container : bucket) if(freeWeight(container) >= weight) result.add(container);
+		return result;
+	}
+
+	static long freeWeight(Container container) { return container.getType().getMaxWeightUnits() - container.getContentsWeightUnits(); }
+
+	static long freeVolume(Container container) { return container.getType().getMaxVolumeUnits() - container.getContentsVolumeUnits(); }
+
+	private void put(Item item) {
+		names.computeIfAbsent(item.getName(), k -> identitySet()).add(item);
+		classes.computeIfAbsent(item.getClass(), k -> identitySet()).add(item);
+		update(item);
+	}
+
+	private void drop(Item item) {
+		unbucket(names, item.getName(), item);
+		unbucket(classes, item.getClass(), item);
+		weights.remove(item);
+		costs.remove(item);
+		if(item instanceof Container) freeVolumes.remove((Container) item);
+	}
+
+	private static <K> void unbucket(Map<K, Set<Item>> map, K key, Item item) {
+		Set<Item> bucket = map.get(key);
+		if(bucket == null) return;
+		bucket.remove(item);
+		if(bucket.isEmpty()) map.remove(key);
+	}
+
+	private static <T> Set<T> identitySet() { return Collections.newSetFromMap(new IdentityHashMap<>()); }
+}
@@ -0,0 +1,15 @@
+package pathMinder.core;
+
+/**
+ * Receives the changes made within a Container's sub-tree.
+ * <p>
+ * Listeners are called synchronously, on the thread making the change.
+ * A listener may itself modify containers, in which case the resulting events are delivered before it returns.
+ *
+ * @see Container#addListener(ContainerListener)
+ * @see ContainerEvent
+ */
+@FunctionalInterface
+public interface ContainerListener {
+	void containerChanged(ContainerEvent event);
+}
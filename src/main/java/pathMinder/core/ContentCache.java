@@ -0,0 +1,174 @@
+package pathMinder.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the contents of rarely opened containers, such as the barrels in a warehouse, out of memory until they are needed.
+ * <p>
+ * The contents of a managed container may be evicted to a ContentStore. The container itself stays in its tree,
+ * and its cached weight, volume, size and count remain available, as do membership queries on the containers above it,
+ * so nothing needs to be loaded to weigh a warehouse or check a capacity. The first access to an evicted container's
+ * contents, such as iterating it, adding to it or taking a snapshot of it, transparently loads them back.
+ * <p>
+ * trim() evicts the least recently accessed containers until the cache's budget is met.
+ * It should be called between operations, such as once a game tick, rather than while iterating a managed tree.
+ * When the heap is nearly full, trim() evicts down to half of the budget.
+ * <p>
+ * Loaded contents are new instances, so references to items held from before their eviction become stale;
+ * such items are no longer contained. For the same reason, a ContentCache should not manage containers journaled by a Journal.
+ * The cache's own bookkeeping is synchronized on the cache, so the parallel traversals of Container.sum and count
+ * may touch and load the managed containers they pass through. Managing, evicting and trimming must still not overlap
+ * with modifications to, or traversals of, the managed trees.
+ *
+ * @see ContentStore
+ */
+public final class ContentCache {
+
+	/**
+	 * The state of one managed container.
+	 */
+	static final class Entry {
+		private final ContentCache cache;
+		private long key;
+		private int count; //the number of evicted items
+		private volatile boolean evicted = false; //read without the lock by Container.count()
+
+		private Entry(ContentCache cache) { this.cache = cache; }
+
+		boolean isEvicted() { return evicted; }
+
+		int getCount() { return count; }
+
+		/**
+		 * Marks the container as recently used, and loads its contents if they were evicted.
+		 * Parallel traversals may call this from several threads at once, so it holds the cache's lock;
+		 * reordering the access-ordered map is a structural modification, and the contents must only be loaded once.
+		 * @throws UncheckedIOException if the contents cannot be loaded
+		 */
+		void access(Container container) {
+			synchronized(cache) {
+				cache.entries.get(container); //moves the container to the most recently used end
+				if(!evicted) return;
+
+				try {
+					container.reload(cache.store.load(key));
+				} catch(IOException e) {
+					throw new UncheckedIOException("Unable to load the contents of " + container.getName(), e);
+				}
+				evicted = false;
+			}
+		}
+	}
+
+	private static final double MEMORY_PRESSURE = 0.9; //the fraction of the heap in use that counts as pressure
+
+	private final ContentStore store;
+	private final int budget;
+	private final Map<Container, Entry> entries = new LinkedHashMap<>(16, 0.75f, true); //least recently accessed first
+
+	/**
+	 * @param store the storage for evicted contents
+	 * @param budget the number of items that may be loaded within managed containers before trim() evicts some
+	 */
+	public ContentCache(ContentStore store, int budget) {
+		this.store = store;
+		this.budget = budget;
+	}
+
+	/**
+	 * Allows a container's contents to be evicted.
+	 * @throws IllegalArgumentException if the container is already managed by a ContentCache
+	 */
+	public synchronized void manage(Container container) {
+		if(container.getLazy() != null) throw new IllegalArgumentException(String.format("%s is already managed", container.getName()));
+
+		Entry entry = new Entry(this);
+		container.setLazy(entry);
+		entries.put(container, entry);
+	}
+
+	/**
+	 * Loads a container's contents, if they were evicted, and stops managing it.
+	 * @return true if the container was managed by this cache
+	 */
+	public synchronized boolean release(Container container) {
+		if(!isManaged(container)) return false;
+
+		container.getContents(); //loads the contents
+		forget(container);
+		return true;
+	}
+
+	public boolean isManaged(Container container) { return container.getLazy() != null && container.getLazy().cache == this; }
+
+	public boolean isEvicted(Container container) { return isManaged(container) && container.getLazy().evicted; }
+
+	/**
+	 * Saves a managed container's contents to the store and discards them from memory.
+	 * Any managed containers within them are released from their caches.
+	 * @return true if the contents were evicted, or false if they were already evicted or empty
+	 * @throws IllegalArgumentException if the container is not managed by this cache
+	 */
+	public synchronized boolean evict(Container container) throws IOException {
+		if(!isManaged(container)) throw new IllegalArgumentException(String.format("%s is not managed", container.getName()));
+
+		Entry entry = container.getLazy();
+		if(entry.evicted || container.getCount() == 0) return false;
+
+		//the contents are saved whole, so managed containers within them stop being managed
+		for(Item item : container) {
+			if(!(item instanceof Container)) continue;
+			Entry nested = ((Container) item).getLazy();
+			if(nested != null) nested.cache.forget((Container) item);
+		}
+
+		List<Item> contents = new ArrayList<>(container.getContents());
+		entry.key = store.store(contents);
+		entry.count = contents.size();
+		container.unload();
+		entry.evicted = true;
+		return true;
+	}
+
+	/**
+	 * Evicts the least recently accessed containers until no more than the budget of items are loaded within managed containers,
+	 * or half of the budget, if the heap is nearly full.
+	 */
+	public synchronized void trim() throws IOException {
+		Runtime runtime = Runtime.getRuntime();
+		double used = (double) (runtime.totalMemory() - runtime.freeMemory()) / runtime.maxMemory();
+		long target = used > MEMORY_PRESSURE ? budget / 2 : budget;
+
+		long loaded = getLoadedItems();
+		List<Container> candidates = new ArrayList<>();
+		for(Map.Entry<Container, Entry> entry : entries.entrySet()) if(!entry.getValue().evicted) candidates.add(entry.getKey());
+
+		for(Iterator<Container> it = candidates.iterator(); loaded > target && it.hasNext();) {
+			Container container = it.next();
+			if(!isManaged(container)) continue; //released by the eviction of a container that held it
+
+			int size = container.size();
+			if(evict(container)) loaded -= size;
+		}
+	}
+
+	/**
+	 * @return the number of items within managed containers whose contents are loaded
+	 */
+	public synchronized long getLoadedItems() {
+		long loaded = 0;
+		for(Map.Entry<Container, Entry> entry : entries.entrySet()) if(!entry.getValue().evicted) loaded += entry.getKey().size();
+		return loaded;
+	}
+
+	private synchronized void forget(Container container) {
+		entries.remove(container);
+		container.setLazy(null);
+	}
+}
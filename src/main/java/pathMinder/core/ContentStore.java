@@ -0,0 +1,27 @@
+package pathMinder.core;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Backing storage for the contents of containers evicted by a ContentCache.
+ *
+ * @see ContentCache
+ * @see FileContentStore
+ */
+public interface ContentStore {
+
+	/**
+	 * Saves the contents of a container, along with everything within them.
+	 * @param items the items directly within the container, in order
+	 * @return a key from which the items may be loaded
+	 */
+	long store(List<Item> items) throws IOException;
+
+	/**
+	 * Loads, and releases, the items saved under a key.
+	 * @param key a key returned by store(List), which is not used again
+	 * @return new instances of the stored items, in order, each the root of its own tree
+	 */
+	List<Item> load(long key) throws IOException;
+}
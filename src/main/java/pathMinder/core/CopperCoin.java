@@ -1,5 +1,7 @@
 package pathMinder.core;
 
 public class CopperCoin extends Coin{
-	public CopperCoin() { super("Coin, gold", 1/50f, 3.576E-5f, 1); }
+	public static final ItemType TYPE = ItemType.of("Coin, copper", 1/50f, 3.576E-5f, 1);
+
+	public CopperCoin() { super(TYPE); }
 }
@@ -1,7 +1,11 @@
 package pathMinder.core;
-//TODO: Implement Encumbrance for various sizes, leg counts, etc.
+
 /**
  * ... See Core Rulebook Ch.7 (Carrying Capacity)
+ * <p>
+ * The load thresholds for every strength score up to TABLE_SIZE are precomputed,
+ * so classifying a creature's encumbrance is a handful of comparisons against a table, with no allocation.
+ * Tremendous strength beyond the table is computed on demand, also without allocation.
  */
 public enum Encumbrance {
 	Light("Light", Integer.MAX_VALUE, 0, 4) {
@@ -11,7 +15,7 @@ public enum Encumbrance {
 		}
 		@Override
 		public int getCapacity(int strength) {
-			return Heavy.getCapacity(strength)/3;
+			return saturate(heavyLoad(strength)/3);
 		}
 	},
 	Medium("Medium", +3, -3, 4) {
@@ -21,7 +25,7 @@ public enum Encumbrance {
 		}
 		@Override
 		public int getCapacity(int strength) {
-			return 2*Heavy.getCapacity(strength)/3;
+			return saturate(mediumLoad(heavyLoad(strength)));
 		}
 	},
 	Heavy("Heavy", +1, -6, 3) {
@@ -31,14 +35,7 @@ public enum Encumbrance {
 		}
 		@Override
 		public int getCapacity(int strength) {
-			if(strength < 30) {
-				return strengthVals[strength];
-			}
-
-			//See Core Rulebook Ch.7 (Tremendous Strength);
-			int modIndex = strength%10+20; //the index of the capacity which is multiplied to calculate the true value
-			int factor = (int) Math.pow(4, Math.floorDiv((strength-modIndex), 10)); //the factor by which the capacity is multiplied
-			return strengthVals[modIndex] * factor;
+			return saturate(heavyLoad(strength));
 		}
 	},
 	Overencumbered("Overencumbered", 0, 0, 0) {
@@ -48,7 +45,7 @@ public enum Encumbrance {
 		}
 		@Override
 		public int getCapacity(int strength) {
-			return 2*Heavy.getCapacity(strength);
+			return saturate(liftLoad(heavyLoad(strength)));
 		}
 	},
 	Atlassian("Atlassian", 0, 0, 0) { //TODO: Come up with a better name;
@@ -58,7 +55,7 @@ public enum Encumbrance {
 		}
 		@Override
 		public int getCapacity(int strength) {
-			return (int) (Math.pow(3, 31)-1);
+			return Integer.MAX_VALUE;
 		}
 	}; //This value is physically impossible, the player should not be able to proceed in this state.
 
@@ -67,6 +64,22 @@ public enum Encumbrance {
 			100, 115, 130, 150, 175, 200, 230, 260, 300, 350,
 			400, 460, 520, 600, 700, 800, 920, 1040, 1200, 1400};
 
+	//Strength scores below this have their thresholds precomputed.
+	private static final int TABLE_SIZE = 128;
+
+	//The maximum Light, Medium, Heavy and Overencumbered loads for each strength score, in that order.
+	private static final float[] thresholds = new float[4*TABLE_SIZE];
+
+	static {
+		for(int strength = 0; strength < TABLE_SIZE; strength++) {
+			long heavy = heavyLoad(strength);
+			thresholds[4*strength] = heavy/3;
+			thresholds[4*strength+1] = mediumLoad(heavy);
+			thresholds[4*strength+2] = heavy;
+			thresholds[4*strength+3] = liftLoad(heavy);
+		}
+	}
+
 	private final String name;
 	public final int maxDex; //Maximum dexterity bonus to armor class
 	public final int ACP; //ArmorCheckPenalty: affects all dexterity and strength based skills
@@ -89,15 +102,61 @@ public enum Encumbrance {
 	 * @param strength the strength score of the creature
 	 * @return the encumbrance level of the creature
 	 */
-	public static Encumbrance getEncumbrance(float equipmentWeight, int strength) { //iterates through and finds the lowest Encumbrance value that equipmentWeight does not exceed;
-		for(Encumbrance encumbrance : Encumbrance.values()) {
-			if(equipmentWeight <= encumbrance.getCapacity(strength)) {
-				return encumbrance;
-			}
+	public static Encumbrance getEncumbrance(float equipmentWeight, int strength) { //finds the lowest Encumbrance value that equipmentWeight does not exceed;
+		if(strength >= 0 && strength < TABLE_SIZE) {
+			int row = 4*strength;
+			return classify(equipmentWeight, thresholds[row], thresholds[row+1], thresholds[row+2], thresholds[row+3]);
 		}
-		return null;
+
+		long heavy = heavyLoad(strength);
+		return classify(equipmentWeight, heavy/3, mediumLoad(heavy), heavy, liftLoad(heavy));
+	}
+
+	/**
+	 * Determines the encumbrance of a creature of any size, with two legs or with four or more.
+	 * <p>
+	 * See Core Rulebook Ch.7 (Bigger and Smaller Creatures)
+	 * @param equipmentWeight the total weight that the character is carrying.
+	 * @param strength the strength score of the creature
+	 * @param size the size category of the creature
+	 * @param quadruped true if the creature has four or more legs
+	 * @return the encumbrance level of the creature
+	 */
+	public static Encumbrance getEncumbrance(float equipmentWeight, int strength, Size size, boolean quadruped) {
+		return getEncumbrance(equipmentWeight / size.getMultiplier(quadruped), strength);
+	}
+
+	private static Encumbrance classify(float weight, float light, float medium, float heavy, float lift) {
+		if(weight <= light) return Light;
+		if(weight <= medium) return Medium;
+		if(weight <= heavy) return Heavy;
+		if(weight <= lift) return Overencumbered;
+		return weight <= Integer.MAX_VALUE ? Atlassian : null;
 	}
 
+	/**
+	 * Calculates the maximum heavy load of a medium biped, without the overflow of getCapacity(int).
+	 * <p>
+	 * See Core Rulebook Ch.7 (Tremendous Strength)
+	 * @param strength the strength score of the creature
+	 * @return the heavy load, in pounds, saturating at Long.MAX_VALUE
+	 */
+	static long heavyLoad(int strength) {
+		if(strength <= 0) return 0;
+		if(strength < 30) return strengthVals[strength];
+
+		int modIndex = strength%10+20; //the index of the capacity which is multiplied to calculate the true value
+		int shift = 2*((strength-modIndex)/10); //the capacity is multiplied by 4 for every 10 points of strength
+		if(shift > 51) return Long.MAX_VALUE; //strengthVals are all less than 2^11
+		return (long) strengthVals[modIndex] << shift;
+	}
+
+	private static long mediumLoad(long heavy) { return heavy > Long.MAX_VALUE/2 ? heavy/3*2 : 2*heavy/3; }
+
+	private static long liftLoad(long heavy) { return heavy > Long.MAX_VALUE/2 ? Long.MAX_VALUE : 2*heavy; }
+
+	private static int saturate(long capacity) { return (int) Math.min(capacity, Integer.MAX_VALUE); }
+
 	/**
 	 * Calculates the speed of a player based on their base speed.
 	 * <p>
@@ -115,4 +174,17 @@ public enum Encumbrance {
 	 * @return the maximum equipment weight before increasing encumbrance
 	 */
 	public abstract int getCapacity(int strength);
+
+	/**
+	 * Calculates the maximum weight a creature of any size can carry at this Encumbrance.
+	 * <p>
+	 * See Core Rulebook Ch.7 (Bigger and Smaller Creatures)
+	 * @param strength the strength value of the creature
+	 * @param size the size category of the creature
+	 * @param quadruped true if the creature has four or more legs
+	 * @return the maximum equipment weight before increasing encumbrance
+	 */
+	public float getCapacity(int strength, Size size, boolean quadruped) {
+		return getCapacity(strength) * size.getMultiplier(quadruped);
+	}
 }
\ No newline at end of file
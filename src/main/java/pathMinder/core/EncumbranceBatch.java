@@ -0,0 +1,144 @@
+package pathMinder.core;
+
+import java.util.stream.IntStream;
+
+/**
+ * Evaluates the encumbrance, speed, maximum dexterity bonus and armor check penalty of many creatures at once,
+ * such as every NPC in a crowd on each tick.
+ * <p>
+ * The loads, strengths and base speeds are gathered into primitive arrays and classified in a single pass,
+ * split across cores once the batch is large enough. The results are written into primitive arrays owned by the batch,
+ * which are reused, and only grown, from one evaluation to the next; a batch evaluated every tick allocates nothing once warm.
+ * <p>
+ * A batch is not thread-safe, and its results are overwritten by the next evaluation.
+ */
+public final class EncumbranceBatch {
+
+	private static final int PARALLEL_THRESHOLD = 1 << 13;
+	private static final int CHUNK = 1 << 11; //the number of creatures evaluated by each parallel task
+
+	private static final Encumbrance[] TIERS = Encumbrance.values();
+
+	//Base speeds below this have the speed at each encumbrance precomputed, indexed by TIERS.length * baseSpeed + ordinal.
+	private static final int SPEED_TABLE_SIZE = 128;
+	private static final int[] speedTable = new int[TIERS.length * SPEED_TABLE_SIZE];
+
+	static {
+		for(int baseSpeed = 0; baseSpeed < SPEED_TABLE_SIZE; baseSpeed++)
+			for(Encumbrance encumbrance : TIERS) speedTable[TIERS.length * baseSpeed + encumbrance.ordinal()] = encumbrance.getSpeed(baseSpeed);
+	}
+
+	private float[] weights;
+	private int[] strengths;
+	private int[] baseSpeeds;
+
+	private byte[] tiers; //the ordinal of each creature's encumbrance
+	private int[] speeds;
+	private int size = 0;
+
+	public EncumbranceBatch() { this(16); }
+
+	/**
+	 * @param capacity the number of creatures expected in each evaluation
+	 */
+	public EncumbranceBatch(int capacity) {
+		weights = new float[capacity];
+		strengths = new int[capacity];
+		baseSpeeds = new int[capacity];
+		tiers = new byte[capacity];
+		speeds = new int[capacity];
+	}
+
+	/**
+	 * Evaluates the characters, in order. Each character's load is read from its inventory's cached weight.
+	 * @return this batch
+	 */
+	public EncumbranceBatch evaluate(Character... characters) {
+		int count = characters.length;
+		ensureCapacity(count);
+		for(int i = 0; i < count; i++) {
+			Character character = characters[i];
+			weights[i] = character.getInventoryGroup().getWeight();
+			strengths[i] = character.getStrength();
+			baseSpeeds[i] = character.getBaseSpeed();
+		}
+		return run(weights, strengths, baseSpeeds, count);
+	}
+
+	/**
+	 * Evaluates the first count creatures described by the arrays, which are read but not retained.
+	 * @param weights the load carried by each creature
+	 * @param strengths the strength score of each creature
+	 * @param baseSpeeds the unencumbered speed of each creature
+	 * @param count the number of creatures
+	 * @return this batch
+	 * @throws IllegalArgumentException if any of the arrays hold fewer than count values
+	 */
+	public EncumbranceBatch evaluate(float[] weights, int[] strengths, int[] baseSpeeds, int count) {
+		if(count < 0 || weights.length < count || strengths.length < count || baseSpeeds.length < count)
+			throw new IllegalArgumentException(String.format("Cannot evaluate %d creatures", count));
+
+		ensureCapacity(count);
+		return run(weights, strengths, baseSpeeds, count);
+	}
+
+	/**
+	 * @return the number of creatures in the last evaluation
+	 */
+	public int size() { return size; }
+
+	/**
+	 * @return the encumbrance of a creature in the last evaluation; loads beyond any capacity are Atlassian
+	 */
+	public Encumbrance getEncumbrance(int index) { return TIERS[tiers[check(index)]]; }
+
+	public int getSpeed(int index) { return speeds[check(index)]; }
+
+	public int getMaxDex(int index) { return getEncumbrance(index).maxDex; }
+
+	public int getACP(int index) { return getEncumbrance(index).ACP; }
+
+	/**
+	 * @return the ordinal of each creature's Encumbrance, in the first size() elements of the batch's own buffer
+	 */
+	public byte[] getTiers() { return tiers; }
+
+	/**
+	 * @return the speed of each creature, in the first size() elements of the batch's own buffer
+	 */
+	public int[] getSpeeds() { return speeds; }
+
+	private EncumbranceBatch run(float[] weights, int[] strengths, int[] baseSpeeds, int count) {
+		size = count;
+		if(count < PARALLEL_THRESHOLD) classify(weights, strengths, baseSpeeds, 0, count);
+		else IntStream.range(0, (count + CHUNK - 1) / CHUNK).parallel()
+				.forEach(chunk -> classify(weights, strengths, baseSpeeds, chunk * CHUNK, Math.min(count, (chunk + 1) * CHUNK)));
+		return this;
+	}
+
+	private void classify(float[] weights, int[] strengths, int[] baseSpeeds, int from, int to) {
+		for(int i = from; i < to; i++) {
+			Encumbrance encumbrance = Encumbrance.getEncumbrance(weights[i], strengths[i]);
+			if(encumbrance == null) encumbrance = Encumbrance.Atlassian; //beyond even Atlassian's capacity
+			int tier = encumbrance.ordinal(), baseSpeed = baseSpeeds[i];
+			tiers[i] = (byte) tier;
+			speeds[i] = baseSpeed >= 0 && baseSpeed < SPEED_TABLE_SIZE ? speedTable[TIERS.length * baseSpeed + tier] : encumbrance.getSpeed(baseSpeed);
+		}
+	}
+
+	private void ensureCapacity(int count) {
+		if(count <= tiers.length) return;
+
+		int capacity = Math.max(count, 2 * tiers.length);
+		weights = new float[capacity];
+		strengths = new int[capacity];
+		baseSpeeds = new int[capacity];
+		tiers = new byte[capacity];
+		speeds = new int[capacity];
+	}
+
+	private int check(int index) {
+		if(index < 0 || index >= size) throw new IndexOutOfBoundsException(String.format("Index %d of %d", index, size));
+		return index;
+	}
+}
@@ -0,0 +1,110 @@
+package pathMinder.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Defers and coalesces the ContainerEvents raised on the current thread, such as over one transaction or one game tick.
+ * <p>
+ * While a batch is open, events are recorded rather than delivered. When the outermost batch closes,
+ * each item that changed gets at most one event describing its net change, in the order the items were first changed:
+ * an item added and then removed gets no event, an item removed from one container and added to another gets a MOVED event,
+ * and an item moved several times gets a single MOVED event from its first container to its last.
+ * Each event goes to the ancestors that its first container had when the item left it,
+ * and to those that its last container had when the item arrived, so removing an item and then its container
+ * still tells the listeners above the container about the item.
+ * <pre>
+ * try(EventBatch batch = EventBatch.open()) {
+ *     pile.move(sword, backpack);
+ *     backpack.remove(apple);
+ * }
+ * </pre>
+ * Batches nest; only the outermost one delivers.
+ */
+public final class EventBatch implements AutoCloseable {
+
+	private static final ThreadLocal<EventBatch> current = new ThreadLocal<>();
+
+	/**
+	 * The net change to one item: where it was before the batch and where it is now.
+	 */
+	private static final class Change {
+		private final Container from;
+		private final Container[] fromPath; //from and its ancestors when the item first changed
+		private Container to;
+		private Container[] toPath; //to and its ancestors when the item last changed
+		private boolean changed;
+
+		private Change(Container from) {
+			this.from = from;
+			fromPath = ContainerEvent.path(from);
+		}
+	}
+
+	private int depth = 0;
+	private Map<Item, Change> changes = null; //keyed by identity, as items do not override equals; created on the first event
+
+	private EventBatch() {}
+
+	/**
+	 * Opens a batch on the current thread, or joins the batch that is already open.
+	 * @return the open batch, which must be closed by the same thread
+	 */
+	public static EventBatch open() {
+		EventBatch batch = current.get();
+		if(batch == null) {
+			batch = new EventBatch();
+			current.set(batch);
+		}
+		batch.depth++;
+		return batch;
+	}
+
+	/**
+	 * @return the batch open on the current thread, or null if there is none
+	 */
+	static EventBatch current() { return current.get(); }
+
+	/**
+	 * Closes this batch. If it is the outermost batch, the coalesced events are delivered to their listeners.
+	 * @throws IllegalStateException if the batch was already closed
+	 */
+	@Override
+	public void close() {
+		if(depth <= 0) throw new IllegalStateException("The batch is already closed.");
+		if(--depth > 0) return;
+
+		current.remove();
+		if(changes == null) return;
+
+		Map<Item, Change> changes = this.changes;
+		this.changes = null;
+		for(Map.Entry<Item, Change> entry : changes.entrySet()) {
+			Change change = entry.getValue();
+			ContainerEvent event = coalesce(entry.getKey(), change);
+			if(event != null) event.deliver(change.toPath, change.fromPath);
+		}
+	}
+
+	void record(ContainerEvent event) {
+		if(changes == null) changes = new LinkedHashMap<>();
+
+		Change change = changes.get(event.getItem());
+		if(change == null) changes.put(event.getItem(), change = new Change(event.getFrom()));
+		change.to = event.getTo();
+		change.toPath = ContainerEvent.path(event.getTo());
+		change.changed |= event.getType() == ContainerEvent.Type.CHANGED;
+	}
+
+	/**
+	 * @return a single event describing the net change to the item, or null if there was none
+	 */
+	private static ContainerEvent coalesce(Item item, Change change) {
+		if(change.from == null && change.to == null) return null; //added and removed again
+		if(change.from == null) return new ContainerEvent(ContainerEvent.Type.ADDED, item, null, change.to);
+		if(change.to == null) return new ContainerEvent(ContainerEvent.Type.REMOVED, item, change.from, null);
+		if(change.from != change.to) return new ContainerEvent(ContainerEvent.Type.MOVED, item, change.from, change.to);
+		if(change.changed) return new ContainerEvent(ContainerEvent.Type.CHANGED, item, change.from, change.to);
+		return null; //moved away and back again
+	}
+}
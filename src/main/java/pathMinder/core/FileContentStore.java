@@ -0,0 +1,40 @@
+package pathMinder.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A ContentStore that saves each container's contents as a SaveFile in a directory.
+ */
+public class FileContentStore implements ContentStore {
+
+	private final Path directory;
+	private long nextKey = 0;
+
+	/**
+	 * @param directory the directory to keep the stored contents in, which is created if necessary
+	 */
+	public FileContentStore(Path directory) throws IOException {
+		this.directory = Files.createDirectories(directory);
+	}
+
+	@Override
+	public long store(List<Item> items) throws IOException {
+		long key = nextKey++;
+		new SaveFile(Collections.emptyList(), items).write(path(key));
+		return key;
+	}
+
+	@Override
+	public List<Item> load(long key) throws IOException {
+		Path path = path(key);
+		List<Item> items = SaveFile.read(path).getItems();
+		Files.delete(path);
+		return items;
+	}
+
+	private Path path(long key) { return directory.resolve(String.format("contents-%d.sav", key)); }
+}
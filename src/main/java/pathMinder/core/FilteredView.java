@@ -0,0 +1,64 @@
+package pathMinder.core;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Predicate;
+
+/**
+ * A live, read-only view of the items in a collection that are of a given class and match a predicate.
+ * Nothing is copied; each traversal filters the backing collection as it goes,
+ * so size() is linear in the size of the backing collection, but contains(Object) is as fast as the backing collection's.
+ * Iterators are as fail-fast as those of the backing collection.
+ */
+final class FilteredView<T extends Item> extends AbstractCollection<T> {
+
+	private final Collection<? extends Item> items;
+	private final Class<T> type;
+	private final Predicate<? super T> filter;
+
+	FilteredView(Collection<? extends Item> items, Class<T> type, Predicate<? super T> filter) {
+		this.items = items;
+		this.type = type;
+		this.filter = filter;
+	}
+
+	@Override
+	public boolean contains(Object o) { return type.isInstance(o) && filter.test(type.cast(o)) && items.contains(o); }
+
+	@Override
+	public int size() {
+		int size = 0;
+		for(Item item : items) if(type.isInstance(item) && filter.test(type.cast(item))) size++;
+		return size;
+	}
+
+	@Override
+	public boolean isEmpty() { return !iterator().hasNext(); }
+
+	@Override
+	public Iterator<T> iterator() {
+		Iterator<? extends Item> it = items.iterator();
+		return new Iterator<T>() {
+			private T next = null;
+
+			@Override
+			public boolean hasNext() {
+				while(next == null && it.hasNext()) {
+					Item item = it.next();
+					if(type.isInstance(item) && filter.test(type.cast(item))) next = type.cast(item);
+				}
+				return next != null;
+			}
+
+			@Override
+			public T next() {
+				if(!hasNext()) throw new NoSuchElementException();
+				T item = next;
+				next = null;
+				return item;
+			}
+		};
+	}
+}
@@ -1,5 +1,7 @@
 package pathMinder.core;
 
 public class GoldCoin extends Coin {
-	public GoldCoin() { super("Coin, gold", 1/50f, 1.66E-5f, 100); }
+	public static final ItemType TYPE = ItemType.of("Coin, gold", 1/50f, 1.66E-5f, 100);
+
+	public GoldCoin() { super(TYPE); }
 }
@@ -22,10 +22,32 @@ class Inventory extends ItemGroup {
 
 	@Override
 	public boolean add(Item newItem) {
-		if(getWeight() + newItem.getWeight() <= getMaxWeight()) return super.add(newItem);
+		if(canCarry(newItem.getWeightUnits())) return super.add(newItem);
 
+		Metrics.rejected(this, newItem);
 		return false;
 	}
 
-	float getMaxWeight() { return Encumbrance.Heavy.getCapacity(holder.getStrength()); }
+	/**
+	 * Refuses growth of a stack carried directly, such as by ItemStack.merge, that the holder cannot carry.
+	 */
+	@Override
+	void resize(long weight, long volume) throws TooManyItemsException {
+		if(weight > 0 && !canCarry(weight)) {
+			Metrics.rejected(this, null);
+			throw new TooManyItemsException("Unable to carry the resized item.");
+		}
+		super.resize(weight, volume);
+	}
+
+	Character getHolder() { return holder; }
+
+	/**
+	 * @param weight the additional weight, in weight units
+	 * @return true if the holder can carry the given additional weight on top of everything already in this inventory
+	 */
+	boolean canCarry(long weight) { return getWeightUnits() + weight <= Units.weight(holder.getMaxWeight()); }
+
+	@Override
+	void weightChanged() { holder.update(); }
 }
\ No newline at end of file
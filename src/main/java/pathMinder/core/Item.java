@@ -17,25 +17,11 @@ package pathMinder.core;
 public abstract class Item {
 
 	/**
-	 * The name that identifies similar instances of an item. This does not uniquely identify this item,
-	 * to do that, the player may give their item a nickname.
+	 * The attributes shared by every similar instance of this item: its name, base cost, weight and volume.
+	 * The name does not uniquely identify this item, to do that, the player may give their item a nickname.
+	 * The cost may be affected by other factors, such as being broken or masterwork.
 	 */
-	private final String name;
-
-	/**
-	 * The true base value of this item, measured in copper pieces. This number may be affected by other factors,
-	 * such as being broken or masterwork.
-	 */
-	private final int cost;
-
-	/**
-	 * The weight of this item, measured in pounds.
-	 */
-	private final float weight;
-	/**
-	 * The volume of this item, measured in cubic feet.
-	 */
-	private final float volume;
+	private final ItemType type;
 
 	/**
 	 * This may be set by the user to identify specific instances of an item,
@@ -48,20 +34,26 @@ public abstract class Item {
 	 */
 	public String description;
 	/**
-	 * true if this item is in a container.
+	 * The Container whose contents directly hold this item, or null if it is not in a container.
+	 * Containers use this to propagate changes up the inventory tree and to answer membership queries in O(depth).
+	 */
+	private Container container;
+	/**
+	 * The latest snapshot of this item, or null if it has changed since one was last taken.
 	 */
-	private boolean contained;
+	private Snapshot snapshot;
+
+	protected Item(ItemType type) {
+		this.type = type;
+		this.container = null;
+	}
 
 	protected Item(String name, float weight, float volume, int cost) {
-		this.name = name;
-		this.weight = weight;
-		this.volume = volume;
-		this.cost = cost;
-		this.contained = false;
+		this(ItemType.of(name, weight, volume, cost));
 	}
 
 	protected Item(Item item) {
-		this(item.name, item.weight, item.volume, item.cost);
+		this(item.type);
 	}
 
 	/**
@@ -71,29 +63,80 @@ public abstract class Item {
 	 * @see Container
 	 * @return the weight of the item
 	 */
-	public float getWeight() { return weight; }
+	public float getWeight() { return Units.pounds(getWeightUnits()); }
+
+	/**
+	 * Returns the weight of this item as getWeight() does, in exact weight units, which may be summed without rounding.
+	 * @return the weight of the item, in weight units
+	 * @see Units
+	 */
+	public long getWeightUnits() { return type.getWeightUnits(); }
 
 	/**
 	 * Returns the volume of this item. This value is not necessarily constant,
 	 * for example, some containers' volumes will grow and shrink with their contents.
 	 * @return the volume of this item.
 	 */
-	public float getVolume() { return volume; }
+	public float getVolume() { return Units.cubicFeet(getVolumeUnits()); }
+
+	/**
+	 * @return the volume of the item, as getVolume() returns it, in exact volume units
+	 * @see Units
+	 */
+	public long getVolumeUnits() { return type.getVolumeUnits(); }
 
 	/**
 	 * @return the cost of the item
 	 */
-	public float getCost(){ return cost; }
+	public float getCost(){ return getCostUnits(); }
+
+	/**
+	 * @return the cost of the item, in copper pieces
+	 */
+	public long getCostUnits() { return type.getCost(); }
 
 	/**
 	 * @return the name of the item
 	 */
-	public String getName() { return name; }
+	public String getName() { return type.getName(); }
+
+	/**
+	 * @return the attributes shared by every similar instance of this item
+	 */
+	public ItemType getType() { return type; }
 
-	public void setContained(boolean contained) { this.contained = contained; }
+	/**
+	 * Returns the Container that directly holds this item.
+	 * Following getContainer() repeatedly walks the path from this item to the root of its inventory tree.
+	 * @return the parent of this item in its inventory tree, or null if it is not in a container
+	 */
+	public Container getContainer() { return container; }
+
+	/**
+	 * Only Containers may set this, as part of inserting or removing an item from their contents.
+	 */
+	void setContainer(Container container) { this.container = container; }
 
 	/**
 	 * @return if the item is contained within a container
 	 */
-	public boolean isContained() { return contained; }
+	public boolean isContained() { return container != null; }
+
+	/**
+	 * Returns an immutable snapshot of this item's current state.
+	 * Repeated calls return the same snapshot until the item changes.
+	 * @return an immutable view of this item
+	 * @see Snapshot
+	 */
+	public Snapshot snapshot() {
+		if(snapshot == null) snapshot = new Snapshot(this);
+		return snapshot;
+	}
+
+	Snapshot getSnapshot() { return snapshot; }
+
+	/**
+	 * Caches a snapshot of this item, or discards the cached snapshot when given null.
+	 */
+	void setSnapshot(Snapshot snapshot) { this.snapshot = snapshot; }
 }
@@ -4,10 +4,28 @@ package pathMinder.core;
  * A conceptual group of items. This represents a group of items that,
  * while not within a physical container, are grouped together.
  * Two examples of this are a person's inventory and a pile on the ground.
+ * <p>
+ * Unlike other items, each ItemGroup has its own name, rather than the name of its ItemType.
  */
 public class ItemGroup extends Container {
+
+	private final String name;
+
 	public ItemGroup(String name, float maxWeight, float maxVolume, int maxCount) {
-		super(name, 0, 0, 0,
-				maxWeight, maxVolume, maxCount, false);
+		super(ItemType.of("Item group", 0, 0, 0,
+				maxWeight, maxVolume, maxCount, false));
+		this.name = name;
 	}
+
+	/**
+	 * Creates a group of an existing group type, such as one read from a save file, keeping its limits exactly.
+	 * @param type a type created by another ItemGroup
+	 */
+	protected ItemGroup(String name, ItemType type) {
+		super(type);
+		this.name = name;
+	}
+
+	@Override
+	public String getName() { return name; }
 }
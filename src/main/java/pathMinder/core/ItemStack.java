@@ -0,0 +1,153 @@
+package pathMinder.core;
+
+/**
+ * A quantity of identical Stackable items held as a single Item.
+ * A stack shares the ItemType of its units and stores only a quantity,
+ * so a hoard of 50,000 gold coins is one object and one entry in its container.
+ * <p>
+ * The weight, volume and cost of a stack are the quantity multiplied by those of a single unit.
+ * Containers treat a stack as a single item for the purpose of their count restriction and size(),
+ * while its weight and volume are accounted for in full.
+ *
+ * @see Stackable
+ */
+public class ItemStack extends Item {
+
+	/**
+	 * The number of unit items in this stack. This is always positive, unless the stack has been merged into another.
+	 */
+	private int quantity;
+
+	/**
+	 * Creates a stack of quantity units, each identical to the specified unit.
+	 * The unit item itself is not added to the stack; it serves only as a template.
+	 * @param unit an instance of the item being stacked
+	 * @param quantity the number of units in the stack
+	 * @throws IllegalArgumentException if unit is not Stackable or quantity is not positive
+	 */
+	public ItemStack(Item unit, int quantity) {
+		super(unit.getType());
+		if(!(unit instanceof Stackable)) throw new IllegalArgumentException(String.format("%s is not stackable", unit.getName()));
+		if(quantity <= 0) throw new IllegalArgumentException("A stack must contain at least one item");
+
+		this.quantity = quantity;
+	}
+
+	/**
+	 * Creates a stack without a unit template, such as when loading a save file.
+	 */
+	ItemStack(ItemType type, int quantity) {
+		super(type);
+		this.quantity = quantity;
+	}
+
+	private ItemStack(ItemStack stack, int quantity) {
+		super(stack);
+		this.quantity = quantity;
+	}
+
+	/**
+	 * @return the total weight of every unit in this stack
+	 */
+	@Override
+	public long getWeightUnits() { return getType().getWeightUnits() * quantity; }
+
+	/**
+	 * @return the total volume of every unit in this stack
+	 */
+	@Override
+	public long getVolumeUnits() { return getType().getVolumeUnits() * quantity; }
+
+	/**
+	 * @return the total cost of every unit in this stack
+	 */
+	@Override
+	public long getCostUnits() { return (long) getType().getCost() * quantity; }
+
+	public float getUnitWeight() { return getType().getWeight(); }
+
+	public float getUnitVolume() { return getType().getVolume(); }
+
+	public float getUnitCost() { return getType().getCost(); }
+
+	/**
+	 * @return the number of units in this stack
+	 */
+	public int getQuantity() { return quantity; }
+
+	/**
+	 * Checks if the specified item is interchangeable with the units in this stack.
+	 * @param item a loose Stackable item or another ItemStack
+	 * @return true if item could be merged into this stack
+	 */
+	public boolean stacksWith(Item item) {
+		return (item instanceof ItemStack || item instanceof Stackable) && item.getType() == getType();
+	}
+
+	/**
+	 * Separates some units from this stack into a new stack, which is not in any container.
+	 * @param count the number of units to separate
+	 * @return a new stack of count units
+	 * @throws IllegalArgumentException if count is not positive or would leave this stack empty
+	 */
+	public ItemStack split(int count) {
+		if(count <= 0 || count >= quantity)
+			throw new IllegalArgumentException(String.format("Unable to split %d items from a stack of %d", count, quantity));
+
+		setQuantity(quantity - count);
+		return new ItemStack(this, count);
+	}
+
+	/**
+	 * Moves the units of the specified item into this stack.
+	 * The item may be either another ItemStack or a single loose Stackable item;
+	 * it is removed from its container, if any, and a merged stack is left empty.
+	 * @param item the item being merged into this stack
+	 * @return true if the item was merged, or false if it does not stack with this
+	 * @throws TooManyItemsException if this stack's container cannot accommodate the merged units;
+	 * neither item will be modified, though item may be re-inserted at a different position within its container.
+	 * @throws NullPointerException if a null Item is supplied
+	 */
+	public boolean merge(Item item) throws TooManyItemsException {
+		if(item == null) throw new NullPointerException(); //null item
+		if(item == this || !stacksWith(item)) return false;
+
+		int count = item instanceof ItemStack ? ((ItemStack) item).quantity : 1;
+		Container previous = item.getContainer();
+		if(previous != null) previous.remove(item);
+
+		try {
+			setQuantity(quantity + count);
+		} catch(TooManyItemsException e) {
+			if(previous != null) previous.add(item);
+			throw e;
+		}
+
+		if(item instanceof ItemStack) {
+			((ItemStack) item).quantity = 0;
+			item.setSnapshot(null);
+		}
+		return true;
+	}
+
+	/**
+	 * Sets the quantity of this stack to a value read from a trusted source, such as a Journal being replayed.
+	 */
+	void restoreQuantity(int quantity) { setQuantity(quantity); }
+
+	/**
+	 * Changes the quantity of this stack, and informs its container of the change in weight and volume.
+	 * @throws TooManyItemsException if this stack's container cannot accommodate the change
+	 */
+	private void setQuantity(int quantity) throws TooManyItemsException {
+		Container container = getContainer();
+		if(container != null) container.resize(
+				getType().getWeightUnits() * (quantity - this.quantity),
+				getType().getVolumeUnits() * (quantity - this.quantity));
+
+		this.quantity = quantity;
+		setSnapshot(null);
+		Container.reindex(this);
+		if(container != null) ContainerEvent.fire(ContainerEvent.Type.CHANGED, this, container, container);
+	}
+}
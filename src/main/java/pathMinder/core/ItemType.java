@@ -0,0 +1,219 @@
+package pathMinder.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The attributes shared by every instance of an item, such as its name, weight, volume and cost.
+ * ItemTypes are interned flyweights; every new GoldCoin references the same ItemType,
+ * so each Item only needs to store a reference to its type alongside its own instance state.
+ * <p>
+ * ItemTypes are immutable and are only created through the static of methods,
+ * which return the existing type if an identical one has already been registered.
+ * Each registered type is assigned a small, dense id, which may be used to refer to it compactly.
+ * <p>
+ * Weights and volumes are given in pounds and cubic feet, but are held as fixed-point Units,
+ * so two types are identical if their attributes round to the same units.
+ *
+ * @see Item
+ */
+public final class ItemType {
+
+	private static final Map<ItemType, ItemType> registry = new ConcurrentHashMap<>();
+	private static volatile ItemType[] types = new ItemType[64]; //indexed by id
+	private static int typeCount = 0; //guarded by registry
+
+	/**
+	 * Returns the registered ItemType of an ordinary item with the specified attributes, registering it if necessary.
+	 * @param name the name that identifies similar instances of the item
+	 * @param weight the weight of the item, measured in pounds
+	 * @param volume the volume of the item, measured in cubic feet
+	 * @param cost the base value of the item, measured in copper pieces
+	 * @return the unique ItemType with the specified attributes
+	 */
+	public static ItemType of(String name, float weight, float volume, int cost) {
+		return ofUnits(name, Units.weight(weight), Units.volume(volume), cost, false, 0, 0, 0, false);
+	}
+
+	/**
+	 * Returns the registered ItemType of a container with the specified attributes, registering it if necessary.
+	 * @param name the name that identifies similar instances of the container
+	 * @param weight the weight of the empty container, measured in pounds
+	 * @param volume the volume of the empty container, measured in cubic feet
+	 * @param cost the base value of the container, measured in copper pieces
+	 * @param maxWeight the maximum weight of the container's contents
+	 * @param maxVolume the maximum volume of the container's contents
+	 * @param maxCount the maximum number of items directly within the container
+	 * @param rigid true if the container's volume does not change as it fills
+	 * @return the unique ItemType with the specified attributes
+	 */
+	public static ItemType of(String name, float weight, float volume, int cost,
+							  float maxWeight, float maxVolume, int maxCount, boolean rigid) {
+		return ofUnits(name, Units.weight(weight), Units.volume(volume), cost,
+				true, Units.weight(maxWeight), Units.volume(maxVolume), maxCount, rigid);
+	}
+
+	/**
+	 * Returns the registered ItemType with the specified attributes, measured in Units, registering it if necessary.
+	 */
+	static ItemType ofUnits(String name, long weight, long volume, int cost,
+							boolean container, long maxWeight, long maxVolume, int maxCount, boolean rigid) {
+		return intern(new ItemType(-1, name, weight, volume, cost, container, maxWeight, maxVolume, maxCount, rigid));
+	}
+
+	/**
+	 * @param id the id of a registered ItemType
+	 * @return the ItemType with the specified id
+	 * @throws IllegalArgumentException if no ItemType has been registered with the specified id
+	 */
+	public static ItemType get(int id) {
+		ItemType[] types = ItemType.types;
+		if(id < 0 || id >= types.length || types[id] == null) throw new IllegalArgumentException(String.format("No ItemType has id %d", id));
+		return types[id];
+	}
+
+	/**
+	 * @return every registered ItemType, in the order in which they were registered
+	 */
+	public static List<ItemType> getTypes() {
+		synchronized(registry) {
+			return Collections.unmodifiableList(Arrays.asList(Arrays.copyOf(types, typeCount)));
+		}
+	}
+
+	/**
+	 * Names do not uniquely identify an ItemType;
+	 * for example, a backpack and a masterwork backpack may share a name but differ in cost.
+	 * @param name the name of an item
+	 * @return every registered ItemType with the specified name
+	 */
+	public static List<ItemType> named(String name) {
+		List<ItemType> named = new ArrayList<>();
+		for(ItemType type : getTypes()) if(type.name.equals(name)) named.add(type);
+		return named;
+	}
+
+	private static ItemType intern(ItemType key) {
+		ItemType type = registry.get(key);
+		if(type != null) return type;
+
+		synchronized(registry) {
+			type = registry.get(key);
+			if(type != null) return type;
+
+			type = new ItemType(typeCount, key.name, key.weight, key.volume, key.cost,
+					key.container, key.maxWeight, key.maxVolume, key.maxCount, key.rigid);
+			if(typeCount == types.length) types = Arrays.copyOf(types, 2 * typeCount);
+			types[typeCount++] = type;
+			registry.put(type, type);
+			return type;
+		}
+	}
+
+	private final int id;
+	private final String name;
+	private final long weight; //in weight units
+	private final long volume; //in volume units
+	private final int cost; //in copper pieces
+
+	//limits on the amount a container of this type can hold
+	private final boolean container;
+	private final long maxWeight; //the maximum weight (in weight units)
+	private final long maxVolume; //the maximum volume (in volume units)
+	private final int maxCount; //the maximum number of items
+	private final boolean rigid; //a rigid container's volume does not change as it fills
+
+	private ItemType(int id, String name, long weight, long volume, int cost,
+					 boolean container, long maxWeight, long maxVolume, int maxCount, boolean rigid) {
+		this.id = id;
+		this.name = Objects.requireNonNull(name);
+		this.weight = weight;
+		this.volume = volume;
+		this.cost = cost;
+		this.container = container;
+		this.maxWeight = maxWeight;
+		this.maxVolume = maxVolume;
+		this.maxCount = maxCount;
+		this.rigid = rigid;
+	}
+
+	/**
+	 * @return the dense id assigned to this type when it was registered
+	 */
+	public int getId() { return id; }
+
+	public String getName() { return name; }
+
+	/**
+	 * @return the weight of a single instance of this type, measured in pounds
+	 */
+	public float getWeight() { return Units.pounds(weight); }
+
+	/**
+	 * @return the weight of a single instance of this type, measured in exact weight units
+	 * @see Units
+	 */
+	public long getWeightUnits() { return weight; }
+
+	/**
+	 * @return the volume of a single, empty instance of this type, measured in cubic feet
+	 */
+	public float getVolume() { return Units.cubicFeet(volume); }
+
+	/**
+	 * @return the volume of a single, empty instance of this type, measured in exact volume units
+	 * @see Units
+	 */
+	public long getVolumeUnits() { return volume; }
+
+	/**
+	 * @return the base value of a single instance of this type, measured in copper pieces
+	 */
+	public int getCost() { return cost; }
+
+	/**
+	 * @return true if instances of this type are Containers
+	 */
+	public boolean isContainer() { return container; }
+
+	public float getMaxWeight() { return Units.pounds(maxWeight); }
+
+	public long getMaxWeightUnits() { return maxWeight; }
+
+	public float getMaxVolume() { return Units.cubicFeet(maxVolume); }
+
+	public long getMaxVolumeUnits() { return maxVolume; }
+
+	public int getMaxCount() { return maxCount; }
+
+	public boolean isRigid() { return rigid; }
+
+	@Override
+	public boolean equals(Object o) {
+		if(this == o) return true;
+		if(!(o instanceof ItemType)) return false;
+
+		ItemType type = (ItemType) o;
+		return
+			name.equals(type.name) &&
+			weight == type.weight &&
+			volume == type.volume &&
+			cost == type.cost &&
+			container == type.container &&
+			maxWeight == type.maxWeight &&
+			maxVolume == type.maxVolume &&
+			maxCount == type.maxCount &&
+			rigid == type.rigid;
+	}
+
+	@Override
+	public int hashCode() { return Objects.hash(name, weight, volume, cost, container, maxWeight, maxVolume, maxCount, rigid); }
+
+	@Override
+	public String toString() { return name; }
+}
@@ -0,0 +1,620 @@
+package pathMinder.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Durably saves a set of characters and items by appending each change to a journal, rather than rewriting a save file.
+ * <p>
+ * A journal directory holds a snapshot, which is an ordinary SaveFile along with the ids of the items in it,
+ * and a sequence of append-only log segments. Once a Journal is created, it listens to every tree in its state,
+ * so every add, remove and move, including Character.pick and Character.drop, is recorded as a small log record:
+ * an item entering the journaled trees is written in full, and every later change refers to it by id.
+ * <p>
+ * Records are group committed: they are buffered in memory and a background thread writes and forces them to disk
+ * together, at most a commit interval after the first of them. sync() blocks until every change made so far is durable.
+ * <p>
+ * When the current segment grows past its size limit, or when compact() is called, the journal moves on to a new segment
+ * and a background thread replays the old snapshot and segments into a new snapshot, then deletes them.
+ * Compaction works entirely from the files, so it never reads the live trees.
+ * <p>
+ * After a crash, recover(Path) replays the segments over the latest snapshot. A record torn by the crash fails its
+ * checksum, and replay of that segment stops there.
+ * <p>
+ * Changes must not be made to journaled trees while the journal is being created or recovered.
+ *
+ * @see SaveFile
+ */
+public final class Journal implements Closeable {
+
+	//record opcodes
+	private static final byte ADD = 1;
+	private static final byte REMOVE = 2;
+	private static final byte MOVE = 3;
+	private static final byte QUANTITY = 4;
+
+	private static final long DEFAULT_COMMIT_INTERVAL = 10; //milliseconds
+	private static final long DEFAULT_SEGMENT_SIZE = 16 << 20; //bytes
+
+	private final Path directory;
+	private final State state;
+	private final SaveFile saveFile;
+	private final long commitInterval;
+	private final long segmentSize;
+	private final ContainerListener listener = this::record;
+	private ContainerEvent lastEvent = null;
+
+	//group commit state, guarded by this
+	private ByteBuffer pending = ByteBuffer.allocate(1 << 12);
+	private ByteBuffer spare = ByteBuffer.allocate(1 << 12);
+	private long appended = 0; //the number of records appended
+	private long durable = 0; //the number of records forced to disk
+	private boolean syncRequested = false;
+	private boolean compactRequested = false;
+	private boolean closed = false;
+	private IOException failure = null;
+
+	//only used by the committer thread
+	private FileChannel segment;
+	private int segmentIndex;
+
+	private final Thread committer;
+	private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "Journal compactor");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private Journal(Path directory, State state, int segmentIndex, long commitInterval, long segmentSize) throws IOException {
+		this.directory = directory;
+		this.state = state;
+		this.saveFile = new SaveFile(state.characters, state.items);
+		this.commitInterval = commitInterval;
+		this.segmentSize = segmentSize;
+		this.segmentIndex = segmentIndex;
+		this.segment = FileChannel.open(segmentPath(directory, segmentIndex),
+				StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+		for(Character character : state.characters) character.getInventoryGroup().addListener(listener);
+		for(Item item : state.items) if(item instanceof Container) ((Container) item).addListener(listener);
+
+		committer = new Thread(this::commitLoop, "Journal committer");
+		committer.setDaemon(true);
+		committer.start();
+	}
+
+	/**
+	 * Starts journaling a set of characters and items, writing their current state as the first snapshot.
+	 * @param directory the directory to keep the journal in, which is created if necessary
+	 * @param state the characters and items to journal
+	 * @return a journal of every later change to the state
+	 * @throws FileAlreadyExistsException if the directory already holds a journal
+	 */
+	public static Journal create(Path directory, SaveFile state) throws IOException {
+		return create(directory, state, DEFAULT_COMMIT_INTERVAL, DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * @param commitInterval the longest time, in milliseconds, that a change waits to be committed with others
+	 * @param segmentSize the size, in bytes, that a log segment may grow to before it is compacted
+	 */
+	public static Journal create(Path directory, SaveFile state, long commitInterval, long segmentSize) throws IOException {
+		Files.createDirectories(directory);
+		if(latestSnapshot(directory) >= 0) throw new FileAlreadyExistsException(directory.toString(), null, "The directory already holds a journal.");
+
+		State initial = new State(state.getCharacters(), state.getItems());
+		initial.assignAll();
+		initial.save(directory, 0);
+		return new Journal(directory, initial, 0, commitInterval, segmentSize);
+	}
+
+	/**
+	 * Restores the state saved in a journal directory, and continues journaling it.
+	 * @param directory a directory holding a journal
+	 * @return the recovered journal, whose state is available from getState()
+	 * @throws NoSuchFileException if the directory does not hold a journal
+	 */
+	public static Journal recover(Path directory) throws IOException {
+		return recover(directory, DEFAULT_COMMIT_INTERVAL, DEFAULT_SEGMENT_SIZE);
+	}
+
+	public static Journal recover(Path directory, long commitInterval, long segmentSize) throws IOException {
+		int snapshot = latestSnapshot(directory);
+		if(snapshot < 0) throw new NoSuchFileException(directory.toString(), null, "The directory does not hold a journal.");
+
+		State state = State.load(directory, snapshot);
+		int next = snapshot;
+		for(int index : segments(directory)) {
+			if(index < snapshot) continue;
+			state.replay(segmentPath(directory, index));
+			next = index + 1; //never append after a torn record
+		}
+		return new Journal(directory, state, next, commitInterval, segmentSize);
+	}
+
+	/**
+	 * @return the journaled characters and items
+	 */
+	public SaveFile getState() { return saveFile; }
+
+	/**
+	 * Blocks until every change recorded so far has been written to disk.
+	 * @throws IOException if the journal has failed to write or compact
+	 */
+	public synchronized void sync() throws IOException {
+		long target = appended;
+		syncRequested = true;
+		notifyAll();
+		try {
+			while(durable < target && failure == null) wait();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+		if(failure != null) throw new IOException("The journal has failed.", failure);
+	}
+
+	/**
+	 * Starts a new log segment, and compacts the previous snapshot and segments into a new snapshot in the background.
+	 */
+	public synchronized void compact() {
+		compactRequested = true;
+		notifyAll();
+	}
+
+	/**
+	 * Stops journaling, after committing every change recorded so far and finishing any compaction.
+	 * @throws IOException if the journal has failed to write or compact
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized(this) {
+			if(closed) return;
+			closed = true;
+			notifyAll();
+		}
+
+		for(Character character : state.characters) character.getInventoryGroup().removeListener(listener);
+		for(Item item : state.items) if(item instanceof Container) ((Container) item).removeListener(listener);
+
+		try {
+			committer.join();
+			compactor.shutdown();
+			compactor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+
+		synchronized(this) {
+			if(failure != null) throw new IOException("The journal has failed.", failure);
+		}
+	}
+
+	/**
+	 * Translates a change to the journaled trees into a log record.
+	 * Items are given ids as they enter the journaled trees, and forget them as they leave.
+	 * An item that still has an id but arrives from outside the journaled trees left them without being recorded,
+	 * so replay may already have dropped it along with a container; it is written in full under new ids instead.
+	 */
+	private synchronized void record(ContainerEvent event) {
+		if(event == lastEvent) return; //delivered once for each journaled tree it touches
+		lastEvent = event;
+
+		Item item = event.getItem();
+		Integer id = state.ids.get(item);
+		Integer to = event.getTo() == null ? null : state.ids.get(event.getTo());
+		if(id != null && (event.getFrom() == null || !state.ids.containsKey(event.getFrom()))) {
+			state.forget(item); //stale
+			id = null;
+		}
+
+		if(to == null) { //left the journaled trees
+			if(id == null) return;
+			state.forget(item);
+			append(new Record(REMOVE).varint(id));
+			return;
+		}
+
+		if(id == null) { //entered the journaled trees
+			//the item may bring along items that have not yet been reported as leaving their journaled containers
+			forEach(item, known -> {
+				Integer old = state.ids.get(known);
+				if(old == null) return;
+				state.forget(known);
+				append(new Record(REMOVE).varint(old));
+			});
+
+			int first = state.nextId;
+			state.nextId = state.assignTree(item, first);
+			Record record = new Record(ADD).varint(to).varint(first);
+			try {
+				new SaveFile(Collections.emptyList(), Collections.singletonList(item))
+						.write(Channels.newChannel(record.out), ByteBuffer.allocate(256));
+			} catch(IOException e) {
+				throw new AssertionError(e); //writing to memory
+			}
+			append(record);
+			return;
+		}
+
+		if(event.getType() == ContainerEvent.Type.CHANGED) append(new Record(QUANTITY).varint(id).varint(((ItemStack) item).getQuantity()));
+		else append(new Record(MOVE).varint(id).varint(to));
+	}
+
+	/**
+	 * Frames a record with its length and checksum and queues it for the next group commit.
+	 */
+	private synchronized void append(Record record) {
+		byte[] payload = record.out.toByteArray();
+		CRC32 crc = new CRC32();
+		crc.update(payload, 0, payload.length);
+
+		if(pending.remaining() < payload.length + 8) {
+			ByteBuffer grown = ByteBuffer.allocate(Math.max(2 * pending.capacity(), pending.position() + payload.length + 8));
+			pending.flip();
+			pending = grown.put(pending);
+		}
+		pending.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+		appended++;
+		notifyAll();
+	}
+
+	/**
+	 * Run by the committer thread: repeatedly waits for records, gathers them for up to a commit interval,
+	 * then writes and forces them in one go.
+	 */
+	private void commitLoop() {
+		try {
+			for(;;) {
+				ByteBuffer batch;
+				long sequence;
+				boolean compact, finished;
+				synchronized(this) {
+					while(pending.position() == 0 && !closed && !compactRequested && !syncRequested) wait();
+
+					long deadline = System.currentTimeMillis() + commitInterval;
+					for(long now = System.currentTimeMillis(); now < deadline && !closed && !syncRequested; now = System.currentTimeMillis())
+						wait(deadline - now); //gather a group of records
+
+					batch = pending;
+					pending = spare;
+					spare = null;
+					sequence = appended;
+					compact = compactRequested;
+					finished = closed;
+					syncRequested = false;
+					compactRequested = false;
+				}
+
+				batch.flip();
+				if(batch.hasRemaining()) {
+					while(batch.hasRemaining()) segment.write(batch);
+					segment.force(false);
+				}
+				batch.clear();
+
+				synchronized(this) {
+					spare = batch;
+					durable = sequence;
+					notifyAll();
+				}
+
+				if(finished) {
+					segment.close();
+					return;
+				}
+				if(compact || segment.size() >= segmentSize) rotate();
+			}
+		} catch(IOException e) {
+			fail(e);
+		} catch(InterruptedException e) {
+			fail(new InterruptedIOException());
+		}
+	}
+
+	/**
+	 * Moves on to a new segment, and compacts the finished ones in the background.
+	 */
+	private void rotate() throws IOException {
+		segment.close();
+		int through = ++segmentIndex;
+		segment = FileChannel.open(segmentPath(directory, through),
+				StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+
+		compactor.execute(() -> {
+			try {
+				compact(directory, through);
+			} catch(IOException e) {
+				fail(e);
+			}
+		});
+	}
+
+	private synchronized void fail(IOException e) {
+		if(failure == null) failure = e;
+		notifyAll();
+	}
+
+	/**
+	 * Replays the latest snapshot and every segment before the specified one into a new snapshot,
+	 * then deletes the files it replaces.
+	 */
+	private static void compact(Path directory, int through) throws IOException {
+		int snapshot = latestSnapshot(directory);
+		if(snapshot >= through) return;
+
+		State state = State.load(directory, snapshot);
+		for(int index : segments(directory)) if(index >= snapshot && index < through) state.replay(segmentPath(directory, index));
+		state.save(directory, through);
+
+		for(int index : segments(directory)) if(index < through) Files.deleteIfExists(segmentPath(directory, index));
+		for(int index : snapshots(directory)) {
+			if(index >= through) continue;
+			Files.deleteIfExists(snapshotPath(directory, index, ".sav"));
+			Files.deleteIfExists(snapshotPath(directory, index, ".ids"));
+		}
+	}
+
+	private static Path segmentPath(Path directory, int index) { return directory.resolve(String.format("journal-%08d.log", index)); }
+
+	private static Path snapshotPath(Path directory, int index, String extension) {
+		return directory.resolve(String.format("snapshot-%08d%s", index, extension));
+	}
+
+	private static List<Integer> segments(Path directory) throws IOException { return indices(directory, "journal-", ".log"); }
+
+	private static List<Integer> snapshots(Path directory) throws IOException { return indices(directory, "snapshot-", ".sav"); }
+
+	/**
+	 * @return the index of the latest complete snapshot, or -1 if there is none
+	 */
+	private static int latestSnapshot(Path directory) throws IOException {
+		List<Integer> snapshots = snapshots(directory);
+		return snapshots.isEmpty() ? -1 : snapshots.get(snapshots.size() - 1);
+	}
+
+	/**
+	 * @return the indices of the files in the directory with the specified prefix and suffix, in ascending order
+	 */
+	private static List<Integer> indices(Path directory, String prefix, String suffix) throws IOException {
+		List<Integer> indices = new ArrayList<>();
+		if(!Files.isDirectory(directory)) return indices;
+
+		try(DirectoryStream<Path> files = Files.newDirectoryStream(directory, prefix + "*" + suffix)) {
+			for(Path file : files) {
+				String name = file.getFileName().toString();
+				try {
+					indices.add(Integer.parseInt(name.substring(prefix.length(), name.length() - suffix.length())));
+				} catch(NumberFormatException e) { /* not one of ours */ }
+			}
+		}
+		Collections.sort(indices);
+		return indices;
+	}
+
+	/**
+	 * Visits an item and every item within it, in pre-order.
+	 */
+	private static void forEach(Item item, Consumer<? super Item> action) {
+		action.accept(item);
+		if(item instanceof Container) for(Item child : (Container) item) action.accept(child);
+	}
+
+	/**
+	 * The payload of a log record being built.
+	 */
+	private static final class Record {
+		private final ByteArrayOutputStream out = new ByteArrayOutputStream(16);
+
+		private Record(byte opcode) { out.write(opcode); }
+
+		private Record varint(int value) {
+			while((value & ~0x7F) != 0) {
+				out.write((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			out.write(value);
+			return this;
+		}
+	}
+
+	/**
+	 * A set of characters and items, along with the id of each of them.
+	 * A character and its inventory share an id.
+	 */
+	private static final class State {
+		private final List<Character> characters;
+		private final List<Item> items;
+		private final Map<Object, Integer> ids = new IdentityHashMap<>();
+		private final Map<Integer, Object> objects = new HashMap<>();
+		private int nextId = 0;
+
+		private State(List<Character> characters, List<Item> items) {
+			this.characters = characters;
+			this.items = items;
+		}
+
+		/**
+		 * Visits every character and item, in the order that they are written to a save file.
+		 */
+		private void forEach(Consumer<Object> action) {
+			for(Character character : characters) {
+				action.accept(character);
+				for(Item item : character.getInventoryContents()) Journal.forEach(item, action);
+			}
+			for(Item item : items) Journal.forEach(item, action);
+		}
+
+		private void assignAll() { forEach(object -> assign(object, nextId++)); }
+
+		private void assign(Object object, int id) {
+			ids.put(object, id);
+			objects.put(id, object);
+			if(object instanceof Character) ids.put(((Character) object).getInventoryGroup(), id);
+		}
+
+		/**
+		 * Assigns consecutive ids to an item and everything within it, in pre-order.
+		 * @return the id after the last one assigned
+		 */
+		private int assignTree(Item item, int first) {
+			int[] next = {first};
+			Journal.forEach(item, object -> assign(object, next[0]++));
+			return next[0];
+		}
+
+		private void forget(Item item) {
+			Journal.forEach(item, object -> objects.remove(ids.remove(object)));
+		}
+
+		private Object get(int id) throws IOException {
+			Object object = objects.get(id);
+			if(object == null) throw new IOException(String.format("The journal refers to an unknown item %d.", id));
+			return object;
+		}
+
+		private Container getContainer(int id) throws IOException {
+			Object object = get(id);
+			if(object instanceof Character) return ((Character) object).getInventoryGroup();
+			if(object instanceof Container) return (Container) object;
+			throw new IOException(String.format("The journal refers to %s as a container.", object));
+		}
+
+		private Item getItem(int id) throws IOException {
+			Object object = get(id);
+			if(object instanceof Item) return (Item) object;
+			throw new IOException(String.format("The journal refers to %s as an item.", object));
+		}
+
+		/**
+		 * Applies every intact record in a log segment, stopping at the first torn or corrupt one.
+		 */
+		private void replay(Path segment) throws IOException {
+			ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+			CRC32 crc = new CRC32();
+			while(buffer.remaining() >= 8) {
+				int length = buffer.getInt(), checksum = buffer.getInt();
+				if(length < 1 || length > buffer.remaining()) return; //torn
+
+				crc.reset();
+				crc.update(buffer.array(), buffer.position(), length);
+				if((int) crc.getValue() != checksum) return; //torn
+
+				ByteBuffer record = buffer.slice();
+				record.limit(length);
+				buffer.position(buffer.position() + length);
+				apply(record);
+			}
+		}
+
+		private void apply(ByteBuffer record) throws IOException {
+			switch(record.get()) {
+				case ADD: {
+					Container container = getContainer(varint(record));
+					int first = varint(record);
+					Item item = SaveFile.read(record).getItems().get(0);
+					nextId = Math.max(nextId, assignTree(item, first));
+					container.restore(Collections.singletonList(item));
+					break;
+				}
+				case REMOVE: {
+					Item item = getItem(varint(record));
+					forget(item);
+					item.getContainer().remove(item);
+					break;
+				}
+				case MOVE: {
+					Item item = getItem(varint(record));
+					Container container = getContainer(varint(record));
+					item.getContainer().remove(item);
+					container.restore(Collections.singletonList(item));
+					break;
+				}
+				case QUANTITY: {
+					Item item = getItem(varint(record));
+					if(!(item instanceof ItemStack)) throw new IOException(String.format("The journal refers to %s as a stack.", item));
+					((ItemStack) item).restoreQuantity(varint(record));
+					break;
+				}
+				default:
+					throw new IOException("The journal contains an unknown record.");
+			}
+		}
+
+		/**
+		 * Writes this state as the snapshot with the specified index; first its ids, then its save file,
+		 * which completes the snapshot when it is moved into place.
+		 */
+		private void save(Path directory, int index) throws IOException {
+			ByteBuffer idBuffer = ByteBuffer.allocate(8 + 4 * ids.size());
+			idBuffer.putInt(nextId).putInt(0);
+			int[] count = {0};
+			forEach(object -> {
+				idBuffer.putInt(ids.get(object));
+				count[0]++;
+			});
+			idBuffer.putInt(4, count[0]).flip();
+
+			Path idPath = snapshotPath(directory, index, ".ids"), savePath = snapshotPath(directory, index, ".sav");
+			Path temporary = directory.resolve(idPath.getFileName() + ".tmp");
+			try(FileChannel channel = FileChannel.open(temporary,
+					StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				while(idBuffer.hasRemaining()) channel.write(idBuffer);
+				channel.force(true);
+			}
+			Files.move(temporary, idPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+			temporary = directory.resolve(savePath.getFileName() + ".tmp");
+			try(FileChannel channel = FileChannel.open(temporary,
+					StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				new SaveFile(characters, items).write(channel, ByteBuffer.allocateDirect(1 << 16));
+				channel.force(true);
+			}
+			Files.move(temporary, savePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+
+		private static State load(Path directory, int index) throws IOException {
+			SaveFile file = SaveFile.read(snapshotPath(directory, index, ".sav"));
+			ByteBuffer idBuffer = ByteBuffer.wrap(Files.readAllBytes(snapshotPath(directory, index, ".ids")));
+
+			State state = new State(file.getCharacters(), file.getItems());
+			state.nextId = idBuffer.getInt();
+			int count = idBuffer.getInt();
+			int[] assigned = {0};
+			state.forEach(object -> {
+				if(assigned[0]++ < count) state.assign(object, idBuffer.getInt());
+			});
+			if(assigned[0] != count) throw new IOException("The snapshot's ids do not match its save file.");
+			return state;
+		}
+
+		private static int varint(ByteBuffer buffer) throws IOException {
+			int value = 0;
+			for(int shift = 0; shift < 35; shift += 7) {
+				byte b = buffer.get();
+				value |= (b & 0x7F) << shift;
+				if(b >= 0) return value;
+			}
+			throw new IOException("Malformed varint.");
+		}
+	}
+}
@@ -0,0 +1,296 @@
+package pathMinder.core;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * A weighted table of loot, from which random hoards are generated.
+ * <p>
+ * Each entry of a table has a positive weight, and is rolled with probability proportional to it.
+ * An entry may be an item, a quantity of an item, another table, a container filled from another table, or nothing at all.
+ * Entries are picked in constant time, with Vose's alias method.
+ * <p>
+ * Generation is reproducible: the same table, number of rolls and seed always produce the same loot,
+ * whether or not it is generated in parallel. The rolls are divided into a fixed tree of ranges,
+ * each with its own SplittableRandom split from its parent's, so which thread rolls a range does not matter.
+ * Large hoards are generated in parallel on the common fork-join pool.
+ * <p>
+ * Stackable items are never created one by one; their quantities are tallied by ItemType
+ * and become as few ItemStacks as possible, so rolling a million coins allocates a single stack.
+ * <p>
+ * A table must not be modified while loot is being generated from it, although generating from it on many threads at once is safe.
+ */
+public final class LootTable {
+
+	private static final int SEQUENTIAL_ROLLS = 1 << 12; //the size of the ranges rolled by a single task
+
+	/**
+	 * Something that may be rolled from a table.
+	 */
+	private interface Entry {
+		void roll(SplittableRandom random, Haul haul);
+	}
+
+	private final List<Entry> entries = new ArrayList<>();
+	private final List<Integer> weights = new ArrayList<>();
+
+	//The alias table, rebuilt on the next roll after an entry is added.
+	private volatile Alias alias = null;
+
+	/**
+	 * Adds an entry yielding a single item.
+	 * @param item creates the item; called for each roll, unless the item is Stackable
+	 * @param weight the relative chance of the entry being rolled
+	 * @return this table
+	 */
+	public LootTable add(Supplier<? extends Item> item, int weight) { return add(item, 1, 1, weight); }
+
+	/**
+	 * Adds an entry yielding a quantity of an item, chosen uniformly between min and max, inclusive.
+	 * Stackable items are yielded as ItemStacks; other items are created individually.
+	 * @param item creates the item
+	 * @param weight the relative chance of the entry being rolled
+	 * @return this table
+	 * @throws IllegalArgumentException if min is not positive, or is more than max
+	 */
+	public LootTable add(Supplier<? extends Item> item, int min, int max, int weight) {
+		if(min <= 0 || min > max) throw new IllegalArgumentException(String.format("Invalid quantity range %d to %d", min, max));
+
+		Item prototype = item.get();
+		if(prototype instanceof Stackable) {
+			ItemType type = prototype.getType();
+			return add((random, haul) -> haul.tally(type, quantity(random, min, max)), weight);
+		}
+		return add((random, haul) -> {
+			for(int n = quantity(random, min, max); n > 0; n--) haul.add(item.get());
+		}, weight);
+	}
+
+	/**
+	 * Adds an entry that rolls once on another table.
+	 * @param weight the relative chance of the entry being rolled
+	 * @return this table
+	 */
+	public LootTable add(LootTable table, int weight) {
+		if(table == null) throw new NullPointerException();
+		return add(table::roll, weight);
+	}
+
+	/**
+	 * Adds an entry yielding a container, filled with some number of rolls on another table.
+	 * Any of the contents that do not fit in the container are discarded, except that as much of a stack is kept as will fit.
+	 * @param container creates the container
+	 * @param contents the table the contents are rolled on
+	 * @param rolls the number of times the contents are rolled
+	 * @param weight the relative chance of the entry being rolled
+	 * @return this table
+	 */
+	public LootTable add(Supplier<? extends Container> container, LootTable contents, int rolls, int weight) {
+		if(contents == null) throw new NullPointerException();
+		return add((random, haul) -> {
+			Haul inside = new Haul();
+			for(int n = 0; n < rolls; n++) contents.roll(random, inside);
+			Container filled = container.get();
+			for(Item item : inside.items()) fill(filled, item);
+			haul.add(filled);
+		}, weight);
+	}
+
+	/**
+	 * Adds an entry yielding nothing.
+	 * @param weight the relative chance of the entry being rolled
+	 * @return this table
+	 */
+	public LootTable addNothing(int weight) { return add((random, haul) -> {}, weight); }
+
+	/**
+	 * Rolls on this table, generating a hoard into a new ItemGroup.
+	 * @param rolls the number of times to roll
+	 * @param seed the seed of the random rolls; the same seed always produces the same hoard
+	 * @return a group holding the hoard
+	 */
+	public ItemGroup generate(int rolls, long seed) {
+		ItemGroup hoard = new ItemGroup("Loot", Float.MAX_VALUE, Float.MAX_VALUE, Integer.MAX_VALUE);
+		hoard.addAll(roll(rolls, seed));
+		return hoard;
+	}
+
+	/**
+	 * Rolls on this table, generating a hoard of loose items.
+	 * @param rolls the number of times to roll
+	 * @param seed the seed of the random rolls; the same seed always produces the same items, in the same order
+	 * @return the items generated
+	 */
+	public List<Item> roll(int rolls, long seed) {
+		if(rolls < 0) throw new IllegalArgumentException("Negative number of rolls");
+
+		Rolls task = new Rolls(this, 0, rolls, new SplittableRandom(seed), rolls > SEQUENTIAL_ROLLS);
+		Haul haul = task.parallel ? ForkJoinPool.commonPool().invoke(task) : task.compute();
+		return haul.items();
+	}
+
+	private LootTable add(Entry entry, int weight) {
+		if(weight <= 0) throw new IllegalArgumentException("Weights must be positive");
+
+		entries.add(entry);
+		weights.add(weight);
+		alias = null;
+		return this;
+	}
+
+	private void roll(SplittableRandom random, Haul haul) {
+		Alias alias = this.alias;
+		if(alias == null) this.alias = alias = new Alias(weights);
+		if(alias.size() == 0) return; //an empty table yields nothing
+
+		entries.get(alias.pick(random)).roll(random, haul);
+	}
+
+	/**
+	 * Adds an item to a container if it fits, or else the largest part of it that fits, if it is a stack.
+	 */
+	private static void fill(Container container, Item item) {
+		if(container.fits(item)) {
+			container.add(item);
+			return;
+		}
+		if(!(item instanceof ItemStack)) return;
+
+		ItemType unit = item.getType(), limits = container.getType();
+		long room = Math.min(
+				unit.getWeightUnits() > 0 ? (limits.getMaxWeightUnits() - container.getContentsWeightUnits()) / unit.getWeightUnits() : Integer.MAX_VALUE,
+				unit.getVolumeUnits() > 0 ? (limits.getMaxVolumeUnits() - container.getContentsVolumeUnits()) / unit.getVolumeUnits() : Integer.MAX_VALUE);
+		int quantity = (int) Math.min(room, ((ItemStack) item).getQuantity()); //exact, as weights and volumes are whole Units
+		if(quantity <= 0) return;
+
+		ItemStack part = new ItemStack(unit, quantity);
+		if(container.fits(part)) container.add(part);
+	}
+
+	private static int quantity(SplittableRandom random, int min, int max) {
+		return min == max ? min : random.nextInt(min, max + 1);
+	}
+
+	/**
+	 * Vose's alias method, which picks an index with probability proportional to its weight in constant time.
+	 */
+	private static final class Alias {
+		private final double[] probability;
+		private final int[] alias;
+
+		Alias(List<Integer> weights) {
+			int n = weights.size();
+			probability = new double[n];
+			alias = new int[n];
+
+			long total = 0;
+			for(int weight : weights) total += weight;
+
+			double[] scaled = new double[n];
+			Deque<Integer> small = new ArrayDeque<>(), large = new ArrayDeque<>();
+			for(int i = 0; i < n; i++) {
+				scaled[i] = (double) weights.get(i) * n / total;
+				(scaled[i] < 1 ? small : large).push(i);
+			}
+
+			while(!small.isEmpty() && !large.isEmpty()) {
+				int less = small.pop(), more = large.pop();
+				probability[less] = scaled[less];
+				alias[less] = more;
+				scaled[more] += scaled[less] - 1;
+				(scaled[more] < 1 ? small : large).push(more);
+			}
+			while(!large.isEmpty()) probability[large.pop()] = 1;
+			while(!small.isEmpty()) probability[small.pop()] = 1; //only left over by rounding error
+		}
+
+		int size() { return probability.length; }
+
+		int pick(SplittableRandom random) {
+			int column = random.nextInt(probability.length);
+			return random.nextDouble() < probability[column] ? column : alias[column];
+		}
+	}
+
+	/**
+	 * The loot generated by some rolls: the items created individually,
+	 * and the total quantity of each Stackable type, which only become ItemStacks at the end.
+	 */
+	private static final class Haul {
+		private final List<Item> items = new ArrayList<>();
+		private final Map<ItemType, long[]> stacks = new IdentityHashMap<>(); //ItemTypes are interned, and hashing one is not cheap
+		private final List<ItemType> types = new ArrayList<>(); //the keys of stacks, in the order they were first tallied
+
+		void add(Item item) { items.add(item); }
+
+		void tally(ItemType type, long quantity) {
+			long[] total = stacks.get(type);
+			if(total == null) {
+				stacks.put(type, total = new long[1]);
+				types.add(type);
+			}
+			total[0] += quantity;
+		}
+
+		/**
+		 * Appends another haul to this one.
+		 */
+		Haul merge(Haul other) {
+			items.addAll(other.items);
+			for(ItemType type : other.types) tally(type, other.stacks.get(type)[0]);
+			return this;
+		}
+
+		/**
+		 * @return the items, followed by a stack of each Stackable type, split where a stack would hold more than Integer.MAX_VALUE
+		 */
+		List<Item> items() {
+			List<Item> result = new ArrayList<>(items.size() + types.size());
+			result.addAll(items);
+			for(ItemType type : types)
+				for(long quantity = stacks.get(type)[0]; quantity > 0; quantity -= Integer.MAX_VALUE)
+					result.add(new ItemStack(type, (int) Math.min(quantity, Integer.MAX_VALUE)));
+			return result;
+		}
+	}
+
+	/**
+	 * Rolls a range of a hoard's rolls, splitting it in half, along with its random generator, until it is small enough.
+	 * The tree of ranges and generators depends only on the number of rolls, so the result does not depend on scheduling.
+	 */
+	private static final class Rolls extends RecursiveTask<Haul> {
+		private static final long serialVersionUID = 1L;
+
+		private final LootTable table;
+		private final int from, to;
+		private final SplittableRandom random;
+		private final boolean parallel;
+
+		Rolls(LootTable table, int from, int to, SplittableRandom random, boolean parallel) {
+			this.table = table;
+			this.from = from;
+			this.to = to;
+			this.random = random;
+			this.parallel = parallel;
+		}
+
+		@Override
+		protected Haul compute() {
+			if(to - from <= SEQUENTIAL_ROLLS) {
+				Haul haul = new Haul();
+				for(int n = from; n < to; n++) table.roll(random, haul);
+				return haul;
+			}
+
+			int mid = (from + to) >>> 1;
+			Rolls left = new Rolls(table, from, mid, random.split(), parallel), right = new Rolls(table, mid, to, random, parallel);
+			if(!parallel) return left.compute().merge(right.compute());
+
+			left.fork();
+			Haul rightHaul = right.compute();
+			return left.join().merge(rightHaul);
+		}
+	}
+}
@@ -0,0 +1,161 @@
+package pathMinder.core;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in instrumentation of the Container hot paths.
+ * <p>
+ * While enabled, Metrics counts and times every add, remove, move, fits and traversal (sum, count and toArray),
+ * records how many levels each change propagates up its tree, and counts capacity rejections,
+ * i.e. TooManyItemsExceptions and items an Inventory refuses.
+ * Slow traversals and capacity rejections are also emitted as JDK Flight Recorder events,
+ * pathMinder.SlowTraversal and pathMinder.CapacityRejection, when a recording has them enabled.
+ * <p>
+ * While disabled, which is the default, each instrumented operation only reads one volatile flag.
+ * Metrics may be read and reset from any thread.
+ */
+public final class Metrics {
+
+	public enum Operation { ADD, REMOVE, MOVE, FITS, TRAVERSAL }
+
+	/**
+	 * A histogram with power-of-two buckets; bucket b holds the values from 2^(b-1) to 2^b - 1.
+	 */
+	public static final class Histogram {
+		private final LongAdder[] buckets = new LongAdder[65];
+		private final LongAdder total = new LongAdder();
+
+		private Histogram() { for(int b = 0; b < buckets.length; b++) buckets[b] = new LongAdder(); }
+
+		void record(long value) {
+			buckets[64 - Long.numberOfLeadingZeros(Math.max(value, 0))].increment();
+			total.add(value);
+		}
+
+		public long getCount() {
+			long count = 0;
+			for(LongAdder bucket : buckets) count += bucket.sum();
+			return count;
+		}
+
+		public double getMean() {
+			long count = getCount();
+			return count == 0 ? 0 : (double) total.sum() / count;
+		}
+
+		/**
+		 * @param quantile a fraction between 0 and 1, such as 0.99
+		 * @return an upper bound on the value at the quantile, accurate to within a factor of two, or 0 if nothing was recorded
+		 */
+		public long getQuantile(double quantile) {
+			long count = getCount(), rank = (long) Math.ceil(quantile * count);
+			for(int b = 0; b < buckets.length; b++) {
+				rank -= buckets[b].sum();
+				if(rank <= 0 && count > 0) return b == 0 ? 0 : b == 64 ? Long.MAX_VALUE : (1L << b) - 1;
+			}
+			return 0;
+		}
+
+		private void reset() {
+			for(LongAdder bucket : buckets) bucket.reset();
+			total.reset();
+		}
+	}
+
+	static final long DISABLED = Long.MIN_VALUE; //returned by start() while disabled
+
+	static volatile boolean enabled = false;
+	private static volatile long slowTraversal = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private static final boolean JFR = isJfrAvailable();
+
+	private static final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+	private static final Histogram depths = new Histogram();
+	private static final LongAdder rejections = new LongAdder();
+
+	static { for(Operation operation : Operation.values()) latencies.put(operation, new Histogram()); }
+
+	private Metrics() {}
+
+	public static void enable() { enabled = true; }
+
+	public static void disable() { enabled = false; }
+
+	public static boolean isEnabled() { return enabled; }
+
+	/**
+	 * @param threshold the duration, in nanoseconds, beyond which a traversal is reported as slow to the Flight Recorder
+	 */
+	public static void setSlowTraversalThreshold(long threshold) { slowTraversal = threshold; }
+
+	/**
+	 * @return the number of times the operation has been performed, which is also the count of its latency histogram
+	 */
+	public static long getCount(Operation operation) { return latencies.get(operation).getCount(); }
+
+	/**
+	 * @return the latencies of the operation, in nanoseconds
+	 */
+	public static Histogram getLatency(Operation operation) { return latencies.get(operation); }
+
+	/**
+	 * @return the number of levels that each change to a tree propagated up through, including the container changed
+	 */
+	public static Histogram getDepth() { return depths; }
+
+	/**
+	 * @return the number of items rejected for lack of capacity
+	 */
+	public static long getRejections() { return rejections.sum(); }
+
+	public static void reset() {
+		for(Histogram histogram : latencies.values()) histogram.reset();
+		depths.reset();
+		rejections.reset();
+	}
+
+	/**
+	 * @return the time an instrumented operation started, or DISABLED
+	 */
+	static long start() { return enabled ? System.nanoTime() : DISABLED; }
+
+	static void stop(Operation operation, long start) {
+		if(start != DISABLED) latencies.get(operation).record(System.nanoTime() - start);
+	}
+
+	/**
+	 * Records a traversal of a container, reporting it to the Flight Recorder if it was slow.
+	 */
+	static void stopTraversal(Container container, long start) {
+		if(start == DISABLED) return;
+
+		long duration = System.nanoTime() - start;
+		latencies.get(Operation.TRAVERSAL).record(duration);
+		if(JFR && duration >= slowTraversal) SlowTraversalEvent.emit(container, duration);
+	}
+
+	static void depth(int levels) { if(enabled) depths.record(levels); }
+
+	/**
+	 * Records that a container refused an item for lack of capacity.
+	 * @param item the item refused, or null if several were
+	 */
+	static void rejected(Container container, Item item) {
+		if(!enabled) return;
+
+		rejections.increment();
+		if(JFR) CapacityRejectionEvent.emit(container, item);
+	}
+
+	private static boolean isJfrAvailable() {
+		try {
+			Class.forName("jdk.jfr.Event");
+			return true;
+		} catch(ClassNotFoundException e) {
+			return false; //Java 8
+		}
+	}
+}
@@ -0,0 +1,458 @@
+package pathMinder.core;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A set of characters and loose items, along with everything they contain, in a compact, versioned binary format.
+ * <p>
+ * A save file begins with a header, followed by three tables and then the inventory trees themselves:
+ * <ul>
+ * <li>a string pool, holding every name, nickname, description and class name once,</li>
+ * <li>a type table, holding the attributes of every ItemType used, with weights and volumes in exact Units,</li>
+ * <li>a class table, holding the Java class of every kind of item used, by its index in the string pool,</li>
+ * <li>the characters, each with its inventory, followed by the loose items.</li>
+ * </ul>
+ * Each item is written in pre-order as its class and type indices followed by its instance state and, for containers,
+ * the number of items it directly holds. All counts and indices are unsigned varints, so most items take only a few bytes.
+ * <p>
+ * Files are written in a single streaming pass through a small buffer, after a first pass that builds the tables,
+ * and are read back through a memory-mapped buffer, so neither direction holds the encoded file on the heap.
+ * Trees are rebuilt bottom-up, with each container's totals calculated once, rather than by adding items one at a time.
+ * <p>
+ * Every item class must either have a no-argument constructor that creates an item of the saved type,
+ * or be an ItemStack or an ItemGroup. ItemGroups are created through their (String, ItemType) constructor, if they have one,
+ * so their limits are restored exactly, and otherwise through their (String, float, float, int) constructor.
+ * <p>
+ * Class names are resolved without initializing the classes, and anything that is not an Item is rejected before it is used,
+ * so a save file from an untrusted source cannot run arbitrary static initializers.
+ * Items may be nested no more than MAX_DEPTH deep.
+ */
+public final class SaveFile {
+
+	private static final int MAGIC = 0x504D5346; //"PMSF"
+	private static final int VERSION = 2; //version 1 stored weights and volumes as floats
+
+	//item flags
+	private static final int NICKNAME = 1;
+	private static final int DESCRIPTION = 2;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * The deepest nesting of containers that will be read, which bounds the recursion of reading a malicious file.
+	 */
+	public static final int MAX_DEPTH = 1 << 10;
+
+	private final List<Character> characters;
+	private final List<Item> items;
+
+	public SaveFile(Collection<Character> characters, Collection<? extends Item> items) {
+		this.characters = Collections.unmodifiableList(new ArrayList<>(characters));
+		this.items = Collections.unmodifiableList(new ArrayList<>(items));
+	}
+
+	public List<Character> getCharacters() { return characters; }
+
+	/**
+	 * @return the loose items in this file, each the root of its own tree
+	 */
+	public List<Item> getItems() { return items; }
+
+	/**
+	 * Writes this save file, replacing the file at the specified path if there is one.
+	 * @param path the file being written
+	 * @throws IOException if the file cannot be written
+	 */
+	public void write(Path path) throws IOException {
+		try(FileChannel channel = FileChannel.open(path,
+				StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			write(channel, ByteBuffer.allocateDirect(BUFFER_SIZE));
+		}
+	}
+
+	/**
+	 * Writes this save file to a channel, encoding it through the specified buffer.
+	 * @param buffer an empty buffer of at least 16 bytes; strings longer than it are written around it
+	 */
+	void write(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+		Tables tables = new Tables();
+		for(Character character : characters) {
+			tables.string(character.getName());
+			for(Item item : character.getInventoryContents()) tables.add(item);
+		}
+		for(Item item : items) tables.add(item);
+
+		Writer out = new Writer(channel, buffer);
+		out.ensure(4);
+		out.buffer.putInt(MAGIC);
+		out.varint(VERSION);
+
+		out.varint(tables.strings.size());
+		for(String string : tables.strings.keySet()) out.string(string);
+
+		out.varint(tables.types.size());
+		for(ItemType type : tables.types.keySet()) {
+			out.varint(tables.strings.get(type.getName()));
+			out.varlong(type.getWeightUnits());
+			out.varlong(type.getVolumeUnits());
+			out.signed(type.getCost());
+			out.ensure(1);
+			out.buffer.put((byte) (type.isContainer() ? type.isRigid() ? 2 : 1 : 0));
+			if(type.isContainer()) {
+				out.varlong(type.getMaxWeightUnits());
+				out.varlong(type.getMaxVolumeUnits());
+				out.varint(type.getMaxCount());
+			}
+		}
+
+		out.varint(tables.classes.size());
+		for(Class<?> type : tables.classes.keySet()) out.varint(tables.strings.get(type.getName()));
+
+		out.varint(characters.size());
+		for(Character character : characters) {
+			out.varint(tables.strings.get(character.getName()));
+			out.signed(character.getStrength());
+			out.signed(character.getBaseSpeed());
+			Set<Item> contents = character.getInventoryContents();
+			out.varint(contents.size());
+			for(Item item : contents) writeItem(out, tables, item);
+		}
+
+		out.varint(items.size());
+		for(Item item : items) writeItem(out, tables, item);
+		out.flush();
+	}
+
+	private static void writeItem(Writer out, Tables tables, Item item) throws IOException {
+		out.varint(tables.classes.get(item.getClass()));
+		out.varint(tables.types.get(item.getType()));
+
+		int flags = (item.nickName != null ? NICKNAME : 0) | (item.description != null ? DESCRIPTION : 0);
+		out.ensure(1);
+		out.buffer.put((byte) flags);
+		if(item.nickName != null) out.varint(tables.strings.get(item.nickName));
+		if(item.description != null) out.varint(tables.strings.get(item.description));
+
+		if(item instanceof ItemStack) out.varint(((ItemStack) item).getQuantity());
+		if(item instanceof ItemGroup) out.varint(tables.strings.get(item.getName()));
+		if(item instanceof Container) {
+			Set<Item> contents = ((Container) item).getContents();
+			out.varint(contents.size());
+			for(Item child : contents) writeItem(out, tables, child);
+		}
+	}
+
+	/**
+	 * Reads a save file by mapping it into memory.
+	 * @param path the file being read
+	 * @return the characters and items in the file
+	 * @throws IOException if the file cannot be read, is not a save file, is corrupt, or refers to classes that cannot be loaded
+	 */
+	public static SaveFile read(Path path) throws IOException {
+		try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if(channel.size() > Integer.MAX_VALUE) throw new IOException("Save files larger than 2GB are not supported.");
+
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return read(buffer);
+		}
+	}
+
+	/**
+	 * Reads a save file from the remaining bytes of a buffer.
+	 */
+	static SaveFile read(ByteBuffer buffer) throws IOException {
+		try {
+			return new Reader(buffer).read();
+		} catch(BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) { //such as a negative quantity
+			throw new IOException("The save file is truncated or corrupt.", e);
+		}
+	}
+
+	/**
+	 * The string pool, type table and class table of a file being written, each mapping a value to its index.
+	 */
+	private static final class Tables {
+		private final Map<String, Integer> strings = new LinkedHashMap<>();
+		private final Map<ItemType, Integer> types = new LinkedHashMap<>();
+		private final Map<Class<?>, Integer> classes = new LinkedHashMap<>();
+
+		private void add(Item item) {
+			Class<?> type = item.getClass();
+			if(!classes.containsKey(type)) {
+				if(type == Inventory.class) throw new IllegalArgumentException("Inventories are saved with their Character.");
+				classes.put(type, classes.size());
+				string(type.getName());
+			}
+			if(!types.containsKey(item.getType())) {
+				types.put(item.getType(), types.size());
+				string(item.getType().getName());
+			}
+			if(item.nickName != null) string(item.nickName);
+			if(item.description != null) string(item.description);
+			if(item instanceof ItemGroup) string(item.getName());
+			if(item instanceof Container) for(Item child : ((Container) item).getContents()) add(child);
+		}
+
+		private void string(String string) { strings.putIfAbsent(string, strings.size()); }
+	}
+
+	/**
+	 * Encodes values into a fixed buffer, writing it to the channel whenever it fills.
+	 */
+	private static final class Writer {
+		private final WritableByteChannel channel;
+		private final ByteBuffer buffer;
+
+		private Writer(WritableByteChannel channel, ByteBuffer buffer) {
+			this.channel = channel;
+			this.buffer = buffer;
+		}
+
+		/**
+		 * Makes room in the buffer for the specified number of bytes, which must be no more than its capacity.
+		 */
+		private void ensure(int bytes) throws IOException { if(buffer.remaining() < bytes) flush(); }
+
+		private void flush() throws IOException {
+			buffer.flip();
+			while(buffer.hasRemaining()) channel.write(buffer);
+			buffer.clear();
+		}
+
+		/**
+		 * Writes an unsigned LEB128 varint; seven bits per byte, least significant first.
+		 */
+		private void varint(int value) throws IOException {
+			ensure(5);
+			while((value & ~0x7F) != 0) {
+				buffer.put((byte) ((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+			buffer.put((byte) value);
+		}
+
+		/**
+		 * Writes an unsigned LEB128 varint of up to 64 bits.
+		 */
+		private void varlong(long value) throws IOException {
+			ensure(10);
+			while((value & ~0x7FL) != 0) {
+				buffer.put((byte) ((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+			buffer.put((byte) value);
+		}
+
+		/**
+		 * Writes a signed value as a zigzag-encoded varint, so that small negative values are also small.
+		 */
+		private void signed(int value) throws IOException { varint((value << 1) ^ (value >> 31)); }
+
+		private void string(String string) throws IOException {
+			byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			varint(bytes.length);
+			if(bytes.length > buffer.capacity()) {
+				flush();
+				ByteBuffer wrapped = ByteBuffer.wrap(bytes);
+				while(wrapped.hasRemaining()) channel.write(wrapped);
+				return;
+			}
+			ensure(bytes.length);
+			buffer.put(bytes);
+		}
+	}
+
+	/**
+	 * Decodes a save file from a buffer.
+	 */
+	private static final class Reader {
+		private final ByteBuffer buffer;
+		private String[] strings;
+		private ItemType[] types;
+		private Class<?>[] classes;
+		private Constructor<?>[] constructors;
+
+		private Reader(ByteBuffer buffer) { this.buffer = buffer; }
+
+		private SaveFile read() throws IOException {
+			if(buffer.remaining() < 4 || buffer.getInt() != MAGIC) throw new IOException("Not a save file.");
+			int version = varint();
+			if(version != VERSION && version != 1) throw new IOException(String.format("Unsupported save file version %d.", version));
+
+			strings = new String[count()];
+			for(int i = 0; i < strings.length; i++) {
+				byte[] bytes = new byte[count()];
+				buffer.get(bytes);
+				strings[i] = new String(bytes, StandardCharsets.UTF_8);
+			}
+
+			types = new ItemType[count()];
+			for(int i = 0; i < types.length; i++) {
+				String name = string();
+				long weight = units(version, Units.PER_POUND), volume = units(version, Units.PER_CUBIC_FOOT);
+				int cost = signed();
+				byte container = buffer.get();
+				types[i] = container == 0 ? ItemType.ofUnits(name, weight, volume, cost, false, 0, 0, 0, false) :
+						ItemType.ofUnits(name, weight, volume, cost,
+								true, units(version, Units.PER_POUND), units(version, Units.PER_CUBIC_FOOT), varint(), container == 2);
+			}
+
+			classes = new Class<?>[count()];
+			constructors = new Constructor<?>[classes.length];
+			for(int i = 0; i < classes.length; i++) {
+				String name = string();
+				try {
+					classes[i] = Class.forName(name, false, SaveFile.class.getClassLoader()); //not initialized until it is known to be an Item
+				} catch(ClassNotFoundException | LinkageError e) {
+					throw new IOException(String.format("Unknown item class %s.", name), e);
+				}
+				if(!Item.class.isAssignableFrom(classes[i])) throw new IOException(String.format("%s is not an item.", name));
+			}
+
+			List<Character> characters = new ArrayList<>();
+			for(int count = count(); count > 0; count--) {
+				Character character = new Character(string(), signed(), signed());
+				character.getInventoryGroup().restore(readItems(1));
+				characters.add(character);
+			}
+
+			List<Item> items = readItems(0);
+			return new SaveFile(characters, items);
+		}
+
+		/**
+		 * @param depth the depth of the items being read; loose items are at depth 0
+		 */
+		private List<Item> readItems(int depth) throws IOException {
+			if(depth > MAX_DEPTH) throw new IOException(String.format("Items are nested more than %d deep.", MAX_DEPTH));
+
+			int count = count();
+			List<Item> items = new ArrayList<>(count);
+			for(int i = 0; i < count; i++) items.add(readItem(depth));
+			return items;
+		}
+
+		private Item readItem(int depth) throws IOException {
+			int index = index(classes.length);
+			Class<?> type = classes[index];
+			ItemType itemType = types[index(types.length)];
+
+			int flags = buffer.get();
+			String nickName = (flags & NICKNAME) != 0 ? string() : null;
+			String description = (flags & DESCRIPTION) != 0 ? string() : null;
+
+			Item item;
+			if(type == ItemStack.class) item = new ItemStack(itemType, varint());
+			else if(ItemGroup.class.isAssignableFrom(type)) item = constructGroup(index, string(), itemType);
+			else item = construct(index);
+
+			if(item.getType() != itemType)
+				throw new IOException(String.format("%s does not create items of type %s.", type.getName(), itemType));
+
+			item.nickName = nickName;
+			item.description = description;
+			if(item instanceof Container) ((Container) item).restore(readItems(depth + 1));
+			return item;
+		}
+
+		/**
+		 * Instantiates the ItemGroup class at the specified index of the class table with the exact limits of its type,
+		 * or, if it has no (String, ItemType) constructor, with its limits rounded through floats.
+		 */
+		private Item constructGroup(int index, String name, ItemType itemType) throws IOException {
+			boolean exact;
+			if(constructors[index] != null) exact = constructors[index].getParameterCount() == 2;
+			else try {
+				classes[index].getDeclaredConstructor(String.class, ItemType.class);
+				exact = true;
+			} catch(NoSuchMethodException e) { exact = false; }
+
+			if(exact) return construct(index, new Class<?>[] {String.class, ItemType.class}, name, itemType);
+			return construct(index, new Class<?>[] {String.class, float.class, float.class, int.class},
+					name, itemType.getMaxWeight(), itemType.getMaxVolume(), itemType.getMaxCount());
+		}
+
+		/**
+		 * Instantiates the class at the specified index of the class table, caching its constructor.
+		 */
+		private Item construct(int index, Class<?>[] parameters, Object... arguments) throws IOException {
+			Class<?> type = classes[index];
+			try {
+				if(constructors[index] == null) {
+					constructors[index] = type.getDeclaredConstructor(parameters);
+					constructors[index].setAccessible(true);
+				}
+				return (Item) constructors[index].newInstance(arguments);
+			} catch(NoSuchMethodException | InstantiationException | IllegalAccessException | InvocationTargetException e) {
+				throw new IOException(String.format("Unable to create an instance of %s.", type.getName()), e);
+			}
+		}
+
+		private Item construct(int index) throws IOException { return construct(index, new Class<?>[0]); }
+
+		/**
+		 * Reads a count of elements or a length in bytes, each element taking at least one of the bytes that remain.
+		 */
+		private int count() throws IOException {
+			int count = varint();
+			if(count < 0 || count > buffer.remaining()) throw new IOException(String.format("Corrupt count %d.", count));
+			return count;
+		}
+
+		/**
+		 * Reads an index into a table of the specified length.
+		 */
+		private int index(int length) throws IOException {
+			int index = varint();
+			if(index < 0 || index >= length) throw new IOException(String.format("Index %d is out of range of a table of %d.", index, length));
+			return index;
+		}
+
+		private String string() throws IOException { return strings[index(strings.length)]; }
+
+		private int varint() throws IOException {
+			int value = 0;
+			for(int shift = 0; shift < 35; shift += 7) {
+				byte b = buffer.get();
+				value |= (b & 0x7F) << shift;
+				if(b >= 0) return value;
+			}
+			throw new IOException("Malformed varint.");
+		}
+
+		private long varlong() throws IOException {
+			long value = 0;
+			for(int shift = 0; shift < 70; shift += 7) {
+				byte b = buffer.get();
+				value |= (long) (b & 0x7F) << shift;
+				if(b >= 0) return value;
+			}
+			throw new IOException("Malformed varint.");
+		}
+
+		/**
+		 * Reads a weight or volume in Units; version 1 files stored it as a float, in pounds or cubic feet.
+		 */
+		private long units(int version, long perUnit) throws IOException {
+			if(version != 1) return varlong();
+			float value = buffer.getFloat();
+			return perUnit == Units.PER_POUND ? Units.weight(value) : Units.volume(value);
+		}
+
+		private int signed() throws IOException {
+			int value = varint();
+			return (value >>> 1) ^ -(value & 1);
+		}
+	}
+}
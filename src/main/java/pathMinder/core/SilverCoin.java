@@ -1,5 +1,7 @@
 package pathMinder.core;
 
 public class SilverCoin extends Coin {
-	public SilverCoin() { super("Coin, silver", 1/50f, 3.054E-5f, 10); }
+	public static final ItemType TYPE = ItemType.of("Coin, silver", 1/50f, 3.054E-5f, 10);
+
+	public SilverCoin() { super(TYPE); }
 }
@@ -0,0 +1,36 @@
+package pathMinder.core;
+
+/**
+ * The size category of a creature, which scales how much it can carry.
+ * <p>
+ * See Core Rulebook Ch.7 (Bigger and Smaller Creatures)
+ */
+public enum Size {
+	Fine("Fine", 1/8f, 1/4f),
+	Diminutive("Diminutive", 1/4f, 1/2f),
+	Tiny("Tiny", 1/2f, 3/4f),
+	Small("Small", 3/4f, 1f),
+	Medium("Medium", 1f, 3/2f),
+	Large("Large", 2f, 3f),
+	Huge("Huge", 4f, 6f),
+	Gargantuan("Gargantuan", 8f, 12f),
+	Colossal("Colossal", 16f, 24f);
+
+	private final String name;
+	public final float bipedMultiplier; //carrying capacity multiplier for creatures with two legs
+	public final float quadrupedMultiplier; //carrying capacity multiplier for creatures with four or more legs
+
+	Size(String name, float bipedMultiplier, float quadrupedMultiplier) {
+		this.name = name;
+		this.bipedMultiplier = bipedMultiplier;
+		this.quadrupedMultiplier = quadrupedMultiplier;
+	}
+
+	/**
+	 * @param quadruped true if the creature has four or more legs
+	 * @return the factor by which the creature's carrying capacity is multiplied
+	 */
+	public float getMultiplier(boolean quadruped) { return quadruped ? quadrupedMultiplier : bipedMultiplier; }
+
+	public String toString() { return name; }
+}
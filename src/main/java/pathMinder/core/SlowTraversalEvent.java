@@ -0,0 +1,39 @@
+package pathMinder.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * A Flight Recorder event for a traversal of a container that took longer than the Metrics threshold.
+ * Only loaded when the Flight Recorder is available.
+ */
+@Name("pathMinder.SlowTraversal")
+@Label("Slow Traversal")
+@Category("pathMinder")
+@Description("A traversal of a container's sub-tree that exceeded the slow traversal threshold")
+class SlowTraversalEvent extends Event {
+
+	@Label("Container")
+	String container;
+
+	@Label("Size")
+	int size;
+
+	@Label("Traversal Time")
+	@Timespan(Timespan.NANOSECONDS)
+	long traversalTime;
+
+	static void emit(Container container, long duration) {
+		SlowTraversalEvent event = new SlowTraversalEvent();
+		if(!event.isEnabled()) return;
+
+		event.container = container.getName();
+		event.size = container.size();
+		event.traversalTime = duration;
+		event.commit();
+	}
+}
@@ -0,0 +1,128 @@
+package pathMinder.core;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * An immutable view of an item, and of its entire contents if it is a container, as it was at a moment in time.
+ * <p>
+ * Snapshots are persistent and structurally shared: each item caches its latest snapshot,
+ * and a change within an inventory tree only discards the cached snapshots along the path from the change to the root.
+ * Taking a snapshot of an unmodified tree is O(1), and after a change only the containers on that path are copied;
+ * every untouched sub-tree is shared with earlier snapshots.
+ * Copying a container copies its list of direct children, sharing each child's snapshot, so a rebuild costs
+ * the sum of the widths of the containers on the path rather than its depth alone; a very wide container,
+ * such as a pile of thousands of loose items, pays for its whole child list each time a snapshot is taken after it changes.
+ * Any number of changes between two snapshots are paid for once, by the second snapshot.
+ * <p>
+ * A Snapshot never changes once taken, so it may be read from any thread while the tree it was taken from keeps changing,
+ * and traversing it never throws ConcurrentModificationException.
+ * Snapshots record the structure, quantities and aggregate weight, volume and size of a tree;
+ * instance details such as nicknames may be read from the live item through getItem().
+ *
+ * @see Container#snapshot()
+ */
+public final class Snapshot {
+
+	private static final Snapshot[] EMPTY = new Snapshot[0];
+
+	private final Item item;
+	private final String name;
+	private final int quantity;
+	private final long weight; //in weight units
+	private final long volume; //in volume units
+	private final int size;
+	private final List<Snapshot> contents;
+
+	Snapshot(Item item) {
+		this(item, item instanceof ItemStack ? ((ItemStack) item).getQuantity() : 1, EMPTY);
+	}
+
+	Snapshot(Container container, Snapshot[] contents) {
+		this(container, 1, contents);
+	}
+
+	private Snapshot(Item item, int quantity, Snapshot[] contents) {
+		this.item = item;
+		this.name = item.getName();
+		this.quantity = quantity;
+		this.weight = item.getWeightUnits();
+		this.volume = item.getVolumeUnits();
+		this.contents = contents.length == 0 ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(contents));
+
+		int size = 0;
+		for(Snapshot snapshot : contents) size += 1 + snapshot.size;
+		this.size = size;
+	}
+
+	/**
+	 * @return the live item that this is a snapshot of
+	 */
+	public Item getItem() { return item; }
+
+	public ItemType getType() { return item.getType(); }
+
+	public String getName() { return name; }
+
+	/**
+	 * @return the number of units, if the item was an ItemStack, or 1 otherwise
+	 */
+	public int getQuantity() { return quantity; }
+
+	/**
+	 * @return the weight of the item, including its contents, when the snapshot was taken
+	 */
+	public float getWeight() { return Units.pounds(weight); }
+
+	public long getWeightUnits() { return weight; }
+
+	/**
+	 * @return the volume of the item when the snapshot was taken
+	 */
+	public float getVolume() { return Units.cubicFeet(volume); }
+
+	public long getVolumeUnits() { return volume; }
+
+	/**
+	 * @return the cost of the item itself, not including its contents
+	 */
+	public float getCost() { return getType().getCost() * (float) quantity; }
+
+	public boolean isContainer() { return item instanceof Container; }
+
+	/**
+	 * @return the number of items within the snapshotted container, not counting itself, as in Container.size()
+	 */
+	public int size() { return size; }
+
+	/**
+	 * @return snapshots of the items that were directly within the container, in order
+	 */
+	public List<Snapshot> getContents() { return contents; }
+
+	/**
+	 * @return a sequential stream over the snapshots of every item within the container, in pre-order
+	 */
+	public Stream<Snapshot> stream() {
+		return contents.stream().flatMap(snapshot -> Stream.concat(Stream.of(snapshot), snapshot.stream()));
+	}
+
+	/**
+	 * @return the live items within the snapshotted container, in pre-order, as Container.toArray() would have returned them
+	 */
+	Item[] items() {
+		Item[] items = new Item[size];
+		fill(items, 0);
+		return items;
+	}
+
+	private int fill(Item[] items, int index) {
+		for(Snapshot snapshot : contents) {
+			items[index++] = snapshot.item;
+			index = snapshot.fill(items, index);
+		}
+		return index;
+	}
+}
@@ -0,0 +1,10 @@
+package pathMinder.core;
+
+/**
+ * Marks an Item as fungible; every instance is interchangeable with any other instance of the same class.
+ * Large quantities of a Stackable item, such as a hoard of coins or a quiver of arrows,
+ * can be represented by a single ItemStack rather than an object per item.
+ *
+ * @see ItemStack
+ */
+public interface Stackable {}
@@ -0,0 +1,260 @@
+package pathMinder.core;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * A plan for stowing many items across many containers at once, such as the loot of a room across a party's packs.
+ * <p>
+ * The plan is computed by best-fit decreasing: the items are placed largest first,
+ * each into the container that it leaves with the least room to spare.
+ * Every placement is checked against the weight, volume and count limits of the container,
+ * the weight and volume limits of each of its ancestors, as propagated through rigid containers,
+ * and the carrying capacity of the character holding it, if any.
+ * Nothing is moved until the plan is applied, which happens atomically through a Transaction.
+ * <p>
+ * When minimizing encumbrance, each item instead goes wherever it leaves the lowest encumbrance:
+ * containers no one is carrying first, then whichever character would be the least encumbered, relative to their capacity.
+ * <p>
+ * Items are sized in parallel when there are many of them, and containers are compared in parallel when there are many of those.
+ * The space an item already occupies in its current container is not credited back while planning.
+ * An item holding any of the containers it might be stowed in is left unplaced, as moving it would carry them along.
+ */
+public final class Stowage {
+
+	private static final int PARALLEL_THRESHOLD = 1 << 10;
+
+	private final Map<Item, Container> assignments;
+	private final List<Item> unplaced;
+	private final Transaction transaction;
+
+	private Stowage(Map<Item, Container> assignments, List<Item> unplaced) {
+		this.assignments = Collections.unmodifiableMap(assignments);
+		this.unplaced = Collections.unmodifiableList(unplaced);
+		transaction = new Transaction();
+		for(Map.Entry<Item, Container> assignment : assignments.entrySet()) transaction.move(assignment.getKey(), assignment.getValue());
+	}
+
+	/**
+	 * @see #plan(Collection, Collection, Collection, boolean)
+	 */
+	public static Stowage plan(Collection<? extends Item> items, Collection<? extends Container> containers) {
+		return plan(items, containers, Collections.emptyList(), false);
+	}
+
+	/**
+	 * Plans where to stow each of the items.
+	 * @param items the items to be stowed; containers among them are stowed along with their contents,
+	 * so items within another of the items are neither assigned nor unplaced, but travel with it
+	 * @param containers the containers the items may be stowed in, which may be nested within each other
+	 * @param characters the characters who may carry the items directly, in their inventories
+	 * @param minimizeEncumbrance whether to place each item where it leaves the lowest encumbrance, rather than where it fits best
+	 * @return a plan placing as many of the items as it can
+	 * @throws IllegalArgumentException if any of the items is also one of the containers or characters' inventories
+	 */
+	public static Stowage plan(Collection<? extends Item> items, Collection<? extends Container> containers,
+							   Collection<Character> characters, boolean minimizeEncumbrance) {
+		List<Container> candidates = new ArrayList<>(containers);
+		for(Character character : characters) candidates.add(character.getInventoryGroup());
+		return new Planner(candidates, minimizeEncumbrance).plan(items);
+	}
+
+	/**
+	 * @return the container planned for each item that could be placed, in the order they were placed
+	 */
+	public Map<Item, Container> getAssignments() { return assignments; }
+
+	/**
+	 * @return the items that did not fit in any of the containers
+	 */
+	public List<Item> getUnplaced() { return unplaced; }
+
+	/**
+	 * Moves every placed item into its planned container, all at once.
+	 * @throws ConcurrentModificationException if any of the trees involved have changed since the plan was made
+	 * @throws IllegalStateException if the plan has already been applied
+	 * @see Transaction#commit()
+	 */
+	public void apply() { transaction.commit(); }
+
+	/**
+	 * The state of a single plan being computed.
+	 * Each container that may be affected by a placement, the candidates and all of their ancestors, is a node,
+	 * numbered in the order it was first seen, which tracks how much has been planned into its sub-tree.
+	 */
+	private static final class Planner {
+
+		private final boolean minimizeEncumbrance;
+
+		private final Map<Container, Integer> nodes = new IdentityHashMap<>();
+		private final List<Container> containers = new ArrayList<>();
+		private final long[] weights, volumes; //planned into each node's sub-tree, in Units
+		private final int[] counts; //planned directly into each node
+
+		private final Container[] candidates;
+		private final int[][] chains; //the nodes from each candidate up to the root of its tree
+
+		Planner(Collection<? extends Container> candidates, boolean minimizeEncumbrance) {
+			this.minimizeEncumbrance = minimizeEncumbrance;
+			this.candidates = new LinkedHashSet<>(candidates).toArray(new Container[0]);
+			chains = new int[this.candidates.length][];
+			for(int c = 0; c < chains.length; c++) {
+				List<Integer> chain = new ArrayList<>();
+				for(Container node = this.candidates[c]; node != null; node = node.getContainer()) chain.add(node(node));
+				chains[c] = chain.stream().mapToInt(Integer::intValue).toArray();
+			}
+			weights = new long[containers.size()];
+			volumes = new long[containers.size()];
+			counts = new int[containers.size()];
+		}
+
+		Stowage plan(Collection<? extends Item> items) {
+			Set<Item> targets = Collections.newSetFromMap(new IdentityHashMap<>());
+			targets.addAll(Arrays.asList(candidates));
+
+			Set<Item> unique = Collections.newSetFromMap(new IdentityHashMap<>());
+			List<Item> unplaced = new ArrayList<>();
+			for(Item item : items) {
+				if(item == null) throw new NullPointerException();
+				if(targets.contains(item))
+					throw new IllegalArgumentException(String.format("%s is both an item and a container.", item.getName()));
+				if(nodes.containsKey(item)) unplaced.add(item); //an ancestor of a candidate, which can go nowhere it would not contain
+				else unique.add(item);
+			}
+			unique.removeIf(item -> {
+				for(Container c = item.getContainer(); c != null; c = c.getContainer()) if(unique.contains(c)) return true;
+				return false; //not within another of the items, which it would travel with
+			});
+
+			Item[] ordered = unique.toArray(new Item[0]);
+			double[] sizes = size(ordered);
+			Integer[] order = new Integer[ordered.length];
+			for(int i = 0; i < order.length; i++) order[i] = i;
+			Comparator<Integer> largestFirst = (a, b) -> Double.compare(sizes[b], sizes[a]);
+			if(order.length >= PARALLEL_THRESHOLD) Arrays.parallelSort(order, largestFirst);
+			else Arrays.sort(order, largestFirst);
+
+			Map<Item, Container> assignments = new LinkedHashMap<>();
+			for(int i : order) {
+				Item item = ordered[i];
+				int best = choose(item);
+				if(best < 0) {
+					unplaced.add(item);
+					continue;
+				}
+				place(item, chains[best]);
+				assignments.put(item, candidates[best]);
+			}
+			return new Stowage(assignments, unplaced);
+		}
+
+		/**
+		 * Sizes each item by the largest share it would take of the room left across all of the candidates, in weight or in volume.
+		 */
+		private double[] size(Item[] items) {
+			double weight = 0, volume = 0;
+			for(Container candidate : candidates) {
+				weight += Math.max(candidate.getType().getMaxWeightUnits() - candidate.getContentsWeightUnits(), 0);
+				volume += Math.max(candidate.getType().getMaxVolumeUnits() - candidate.getContentsVolumeUnits(), 0);
+			}
+			double totalWeight = Math.max(weight, 1), totalVolume = Math.max(volume, 1);
+
+			IntStream indexes = IntStream.range(0, items.length);
+			if(items.length >= PARALLEL_THRESHOLD) indexes = indexes.parallel();
+			return indexes.mapToDouble(i -> Math.max(items[i].getWeightUnits() / totalWeight, items[i].getVolumeUnits() / totalVolume)).toArray();
+		}
+
+		/**
+		 * @return the index of the best candidate for the item, or -1 if it fits in none of them
+		 */
+		private int choose(Item item) {
+			long weight = item.getWeightUnits(), volume = item.getVolumeUnits();
+			double[] ranks = new double[candidates.length], fits = new double[candidates.length];
+
+			IntStream indexes = IntStream.range(0, candidates.length);
+			if(candidates.length >= PARALLEL_THRESHOLD) indexes = indexes.parallel();
+			indexes.forEach(c -> {
+				if(!fits(item, weight, volume, c)) {
+					ranks[c] = Double.POSITIVE_INFINITY;
+					return;
+				}
+				ranks[c] = minimizeEncumbrance ? encumbrance(weight, chains[c]) : 0;
+				fits[c] = slack(weight, volume, chains[c][0]);
+			});
+
+			int best = -1;
+			for(int c = 0; c < candidates.length; c++) {
+				if(ranks[c] == Double.POSITIVE_INFINITY) continue;
+				if(best < 0 || ranks[c] < ranks[best] || ranks[c] == ranks[best] && fits[c] < fits[best]) best = c;
+			}
+			return best;
+		}
+
+		/**
+		 * Checks the item against the container and its ancestors, exactly as Transaction.commit() will.
+		 */
+		private boolean fits(Item item, long weight, long volume, int candidate) {
+			int[] chain = chains[candidate];
+			Container container = candidates[candidate];
+			if(item instanceof Container && ((Container) item).contains(container)) return false; //self-containing restriction
+			if(container.getCount() + (counts[chain[0]] + 1) > container.getType().getMaxCount()) return false; //count restriction
+
+			for(int node : chain) {
+				Container c = containers.get(node);
+				ItemType type = c.getType();
+				if(c.getContentsWeightUnits() + (weights[node] + weight) > type.getMaxWeightUnits()) return false; //weight restriction
+				if(volume > 0 && c.getContentsVolumeUnits() + (volumes[node] + volume) > type.getMaxVolumeUnits()) return false; //volume restriction
+				if(c instanceof Inventory && !((Inventory) c).canCarry(weights[node] + weight)) return false; //encumbrance restriction
+				if(type.isRigid()) volume = 0;
+			}
+			return true;
+		}
+
+		/**
+		 * @return the encumbrance the item would leave at the root of the candidate's tree, with the least encumbered first
+		 */
+		private double encumbrance(long weight, int[] chain) {
+			Container root = containers.get(chain[chain.length - 1]);
+			if(!(root instanceof Inventory)) return 0; //no one is carrying it
+
+			Character holder = ((Inventory) root).getHolder();
+			float load = Units.pounds(root.getWeightUnits() + weights[chain[chain.length - 1]] + weight);
+			Encumbrance encumbrance = Encumbrance.getEncumbrance(load, holder.getStrength());
+			int tier = encumbrance == null ? Encumbrance.values().length : encumbrance.ordinal();
+			return 1 + 2 * tier + Math.min(load / holder.getMaxWeight(), 1); //ordered by tier, then by share of capacity
+		}
+
+		/**
+		 * @return the share of the container's weight and volume limits that would be left over after the item was placed
+		 */
+		private double slack(long weight, long volume, int node) {
+			Container container = containers.get(node);
+			ItemType type = container.getType();
+			double slack = 0;
+			if(type.getMaxWeightUnits() < Units.UNLIMITED)
+				slack += (double) (type.getMaxWeightUnits() - container.getContentsWeightUnits() - weights[node] - weight) / type.getMaxWeightUnits();
+			if(type.getMaxVolumeUnits() < Units.UNLIMITED)
+				slack += (double) (type.getMaxVolumeUnits() - container.getContentsVolumeUnits() - volumes[node] - volume) / type.getMaxVolumeUnits();
+			return slack;
+		}
+
+		private void place(Item item, int[] chain) {
+			long weight = item.getWeightUnits(), volume = item.getVolumeUnits();
+			counts[chain[0]]++;
+			for(int node : chain) {
+				weights[node] += weight;
+				volumes[node] += volume;
+				if(containers.get(node).getType().isRigid()) volume = 0;
+			}
+		}
+
+		private int node(Container container) {
+			Integer node = nodes.get(container);
+			if(node != null) return node;
+
+			nodes.put(container, containers.size());
+			containers.add(container);
+			return containers.size() - 1;
+		}
+	}
+}
@@ -1,5 +1,10 @@
 package pathMinder.core;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Thrown to indicate that a Container cannot accept the supplied items due to
  * constraints on the quantity that it can contain.
@@ -11,7 +16,21 @@ public class TooManyItemsException extends ContainerException {
 
 	private static final long serialVersionUID = 1L;
 
-	public TooManyItemsException(String message) { super(message); }
-	public TooManyItemsException(Throwable cause) { super(cause); }
-	public TooManyItemsException(String message, Throwable err) { super(message, err); }
+	/**
+	 * The items that could not be accepted, if this was thrown by a bulk operation.
+	 */
+	private final List<Item> rejected;
+
+	public TooManyItemsException(String message) { this(message, Collections.emptyList()); }
+	public TooManyItemsException(Throwable cause) { super(cause); rejected = Collections.emptyList(); }
+	public TooManyItemsException(String message, Throwable err) { super(message, err); rejected = Collections.emptyList(); }
+	public TooManyItemsException(String message, Collection<? extends Item> rejected) {
+		super(message);
+		this.rejected = Collections.unmodifiableList(new ArrayList<>(rejected));
+	}
+
+	/**
+	 * @return the items that caused a bulk operation to fail, or an empty list if this was not thrown by a bulk operation
+	 */
+	public List<Item> getRejected() { return rejected; }
 }
@@ -0,0 +1,190 @@
+package pathMinder.core;
+
+import java.util.*;
+
+/**
+ * A set of moves between containers and characters that is applied all at once, or not at all,
+ * such as a trade between two characters.
+ * <p>
+ * Moves are staged, then committed together. Committing checks the whole transaction against every constraint first:
+ * the weight, volume and count limits of each container affected, including the ancestors of each destination,
+ * and the carrying capacity of each character receiving items. Only if all of them hold is anything moved.
+ * <p>
+ * Transactions are optimistic. Staging a move records the version of the trees it touches, and does not lock anything.
+ * If an item enters or leaves any of those trees before the commit, the commit fails with a ConcurrentModificationException,
+ * as the transaction was based on a state that no longer exists.
+ * The commit itself holds the locks of only the ConcurrentItemGroups it touches, so transactions between unrelated
+ * inventories never contend with each other.
+ * <p>
+ * The moves in a transaction are independent of each other: no item may be staged twice,
+ * and no staged item may be within another staged item or hold a staged destination,
+ * since each move is checked against the trees as they were when the transaction began.
+ */
+public final class Transaction {
+
+	private static final class Move {
+		final Item item;
+		final Container from; //null if the item was in no container
+		final Container to; //null if the item is being removed
+
+		Move(Item item, Container from, Container to) {
+			this.item = item;
+			this.from = from;
+			this.to = to;
+		}
+	}
+
+	private final Map<Item, Move> moves = new LinkedHashMap<>();
+	private final Map<Container, Integer> versions = new IdentityHashMap<>(); //the roots of every tree touched, and their versions
+	private boolean committed = false;
+
+	/**
+	 * Stages a move of an item into a container. The item may be in any container, or in none.
+	 * @return this transaction
+	 * @throws IllegalArgumentException if the item has already been staged
+	 * @throws IllegalStateException if this transaction has already been committed
+	 */
+	public Transaction move(Item item, Container to) {
+		if(to == null) throw new NullPointerException();
+		return stage(item, to);
+	}
+
+	/**
+	 * Stages a move of an item into a character's inventory.
+	 * @return this transaction
+	 */
+	public Transaction give(Item item, Character to) { return move(item, to.getInventoryGroup()); }
+
+	/**
+	 * Stages the removal of an item from its container.
+	 * @return this transaction
+	 * @throws IllegalArgumentException if the item has already been staged, or is not in a container
+	 */
+	public Transaction remove(Item item) { return stage(item, null); }
+
+	/**
+	 * Checks every staged move, then applies them all.
+	 * If anything goes wrong while they are being applied, the moves already made are undone.
+	 * @throws TooManyItemsException if any of the moves would violate a constraint; nothing is moved,
+	 * and the items that could not be moved are available from TooManyItemsException.getRejected()
+	 * @throws ConcurrentModificationException if any of the trees touched by this transaction have changed since it was staged
+	 * @throws IllegalArgumentException if a staged item is within another staged item, or holds a staged destination
+	 * @throws IllegalStateException if this transaction has already been committed
+	 */
+	public void commit() throws TooManyItemsException {
+		if(committed) throw new IllegalStateException("Transaction already committed.");
+
+		Set<ConcurrentItemGroup> guards = Collections.newSetFromMap(new IdentityHashMap<>());
+		for(Container root : versions.keySet()) if(root instanceof ConcurrentItemGroup) guards.add((ConcurrentItemGroup) root);
+
+		ConcurrentItemGroup.lockedAll(guards, () -> {
+			verify();
+			check();
+			apply();
+			return null;
+		});
+		committed = true;
+	}
+
+	private Transaction stage(Item item, Container to) {
+		if(item == null) throw new NullPointerException();
+		if(committed) throw new IllegalStateException("Transaction already committed.");
+		if(moves.containsKey(item)) throw new IllegalArgumentException(String.format("%s is already staged.", item.getName()));
+
+		Container from = item.getContainer();
+		if(from == null && to == null) throw new IllegalArgumentException(String.format("%s is not in a container.", item.getName()));
+		moves.put(item, new Move(item, from, to));
+		if(from != null) record(from.getRoot());
+		if(to != null) record(to.getRoot());
+		return this;
+	}
+
+	private void record(Container root) { if(!versions.containsKey(root)) versions.put(root, root.getModCount()); }
+
+	/**
+	 * Ensures that nothing has entered or left any of the trees touched since the moves were staged.
+	 */
+	private void verify() {
+		for(Map.Entry<Container, Integer> version : versions.entrySet())
+			if(version.getKey().getContainer() != null || version.getKey().getModCount() != version.getValue())
+				throw new ConcurrentModificationException();
+		for(Move move : moves.values())
+			if(move.item.getContainer() != move.from) throw new ConcurrentModificationException();
+	}
+
+	/**
+	 * Sums the effect of every move on each container, as propagate would apply it,
+	 * and ensures that none of them would be left over a limit it is not already over.
+	 */
+	private void check() {
+		Map<Container, long[]> deltas = new IdentityHashMap<>(); //the change in weight, volume and count of each container
+		for(Move move : moves.values()) {
+			for(Container c = move.to; c != null; c = c.getContainer())
+				if(moves.containsKey(c)) throw new IllegalArgumentException(String.format("%s is moved by the same transaction.", c.getName()));
+			for(Container c = move.item.getContainer(); c != null; c = c.getContainer())
+				if(moves.containsKey(c)) throw new IllegalArgumentException(String.format("%s is moved by the same transaction.", c.getName()));
+
+			long weight = move.item.getWeightUnits(), volume = move.item.getVolumeUnits();
+			if(move.from != null) accumulate(deltas, move.from, -weight, -volume, -1);
+			if(move.to != null) accumulate(deltas, move.to, weight, volume, 1);
+		}
+
+		Set<Container> overflowing = Collections.newSetFromMap(new IdentityHashMap<>());
+		for(Map.Entry<Container, long[]> entry : deltas.entrySet()) {
+			Container container = entry.getKey();
+			ItemType type = container.getType();
+			long[] delta = entry.getValue();
+			if(
+				delta[0] > 0 && container.getContentsWeightUnits() + delta[0] > type.getMaxWeightUnits() || //weight restriction
+				delta[1] > 0 && container.getContentsVolumeUnits() + delta[1] > type.getMaxVolumeUnits() || //volume restriction
+				delta[2] > 0 && container.getCount() + delta[2] > type.getMaxCount() || //count restriction
+				delta[0] > 0 && container instanceof Inventory && !((Inventory) container).canCarry(delta[0])) //encumbrance restriction
+				overflowing.add(container);
+		}
+
+		List<Item> rejected = new ArrayList<>();
+		for(Move move : moves.values()) {
+			if(move.to == null) continue;
+
+			boolean fits = true;
+			for(Container c = move.to; fits && c != null; c = c.getContainer()) fits = !overflowing.contains(c);
+			if(fits) continue;
+
+			rejected.add(move.item);
+			Metrics.rejected(move.to, move.item);
+		}
+		if(!rejected.isEmpty())
+			throw new TooManyItemsException(String.format("Unable to commit %d items.", rejected.size()), rejected);
+	}
+
+	private static void accumulate(Map<Container, long[]> deltas, Container container, long weight, long volume, int count) {
+		deltas.computeIfAbsent(container, c -> new long[3])[2] += count;
+		for(Container c = container; c != null; c = c.getContainer()) {
+			long[] delta = deltas.computeIfAbsent(c, k -> new long[3]);
+			delta[0] += weight;
+			delta[1] += volume;
+			if(c.getType().isRigid()) volume = 0;
+		}
+	}
+
+	/**
+	 * Applies every move, undoing those already applied if any of them fail.
+	 */
+	private void apply() {
+		Deque<Move> applied = new ArrayDeque<>();
+		EventBatch events = EventBatch.open();
+		try {
+			for(Move move : moves.values()) {
+				if(move.to == null) move.from.remove(move.item);
+				else move.to.place(move.item);
+				applied.push(move);
+			}
+		} catch(RuntimeException e) {
+			for(Move move : applied) {
+				if(move.from == null) move.item.getContainer().remove(move.item);
+				else move.from.place(move.item);
+			}
+			throw e;
+		} finally { events.close(); }
+	}
+}
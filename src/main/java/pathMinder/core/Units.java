@@ -0,0 +1,55 @@
+package pathMinder.core;
+
+/**
+ * The fixed-point units in which weights, volumes and costs are held and summed.
+ * <p>
+ * Weights are counted in thousandths of a pound, volumes in billionths of a cubic foot, and costs in copper pieces,
+ * all as longs. Sums of them are exact, so the cached totals of a container never drift however many items
+ * enter and leave it, and ten thousand coins at a fiftieth of a pound each weigh exactly two hundred pounds.
+ * <p>
+ * Floats are converted once, to the nearest unit, when an ItemType is created, and converted back only for display.
+ * Long.MAX_VALUE stands for an unlimited weight or volume, and is what Float.MAX_VALUE converts to, and from.
+ */
+public final class Units {
+
+	/**
+	 * The number of weight units in a pound.
+	 */
+	public static final long PER_POUND = 1000;
+
+	/**
+	 * The number of volume units in a cubic foot.
+	 */
+	public static final long PER_CUBIC_FOOT = 1_000_000_000;
+
+	/**
+	 * The weight or volume of a container with no limit on it.
+	 */
+	public static final long UNLIMITED = Long.MAX_VALUE;
+
+	private Units() {}
+
+	/**
+	 * @param pounds a weight, measured in pounds
+	 * @return the nearest number of weight units, saturating at UNLIMITED
+	 */
+	public static long weight(float pounds) { return Math.round((double) pounds * PER_POUND); }
+
+	/**
+	 * @param cubicFeet a volume, measured in cubic feet
+	 * @return the nearest number of volume units, saturating at UNLIMITED
+	 */
+	public static long volume(float cubicFeet) { return Math.round((double) cubicFeet * PER_CUBIC_FOOT); }
+
+	/**
+	 * @param weight a number of weight units
+	 * @return the weight in pounds, or Float.MAX_VALUE if it is UNLIMITED
+	 */
+	public static float pounds(long weight) { return weight == UNLIMITED ? Float.MAX_VALUE : (float) ((double) weight / PER_POUND); }
+
+	/**
+	 * @param volume a number of volume units
+	 * @return the volume in cubic feet, or Float.MAX_VALUE if it is UNLIMITED
+	 */
+	public static float cubicFeet(long volume) { return volume == UNLIMITED ? Float.MAX_VALUE : (float) ((double) volume / PER_CUBIC_FOOT); }
+}
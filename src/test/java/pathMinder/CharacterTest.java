@@ -5,6 +5,11 @@ import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 
 import pathMinder.core.*;
 import pathMinder.core.Character;
@@ -29,6 +34,22 @@ public class CharacterTest {
 				"Character.getEncumbrance(): a character should not be able to attain Atlassian encumbrance from picking items");
 	}
 
+	@Test
+	public void testMergeEncumbrance() {
+		Character weak = new Character("Weak", 1, 30);
+		assertFalse(weak.pick(new ItemStack(new GoldCoin(), 100000)));
+
+		//merging into a carried stack is held to the same carrying capacity as picking
+		ItemStack gold = new ItemStack(new GoldCoin(), 1);
+		assertTrue(weak.pick(gold));
+		ItemStack hoard = new ItemStack(new GoldCoin(), 100000);
+		assertThrows(TooManyItemsException.class, () -> gold.merge(hoard));
+		assertEquals(1, gold.getQuantity());
+		assertEquals(100000, hoard.getQuantity());
+		assertNotEquals(Encumbrance.Atlassian, weak.getEncumbrance());
+		assertTrue(gold.merge(new ItemStack(new GoldCoin(), 10)), "growth the holder can carry is allowed");
+	}
+
 	@Test
 	public void testInventory() {
 		Character character = new Character("Steve", 12, 30);
@@ -53,4 +74,73 @@ public class CharacterTest {
 		for(Item item : items) assertTrue(character.drop(item));
 		assertEquals(0, character.getInventory().size());
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testCachedEncumbrance() {
+		Character character = new Character("Steve", 10, 30);
+		List<Encumbrance> changes = new ArrayList<>();
+		character.addEncumbranceListener((c, oldEncumbrance, newEncumbrance) -> changes.add(newEncumbrance));
+
+		assertEquals(Encumbrance.Light, character.getEncumbrance());
+		assertEquals(30, character.getSpeed());
+
+		//a barrel weighs 30 pounds, and light encumbrance at strength 10 is up to 33
+		Barrel barrel = new Barrel();
+		assertTrue(character.pick(barrel));
+		assertTrue(changes.isEmpty(), "the encumbrance did not change tier");
+
+		//filling the barrel deep within the inventory still updates the character
+		Backpack backpack = new Backpack(), inner = new Backpack();
+		assertTrue(barrel.add(backpack));
+		assertTrue(changes.isEmpty());
+		assertTrue(backpack.add(inner));
+		assertEquals(Encumbrance.Medium, character.getEncumbrance());
+		assertEquals(Collections.singletonList(Encumbrance.Medium), changes);
+		assertEquals(20, character.getSpeed());
+		assertEquals(3, character.getMaxDex());
+		assertEquals(-3, character.getACP());
+
+		character.setStrength(20);
+		assertEquals(Encumbrance.Light, character.getEncumbrance(), "strength changes should reclassify");
+		character.setStrength(10);
+
+		assertTrue(barrel.remove(backpack));
+		assertEquals(Encumbrance.Light, character.getEncumbrance());
+		assertEquals(Arrays.asList(Encumbrance.Medium, Encumbrance.Light, Encumbrance.Medium, Encumbrance.Light), changes);
+		assertEquals(30, character.getSpeed());
+	}
+
+	@Test
+	public void testInventoryViews() {
+		Character character = new Character("Steve", 12, 30);
+		Set<Item> inventory = character.getInventory();
+		Backpack backpack = new Backpack();
+		GoldCoin coin = new GoldCoin();
+		Apple apple = new Apple();
+		character.pick(backpack);
+		character.pick(apple);
+		backpack.add(coin);
+
+		//views are live and read-only
+		assertSame(inventory, character.getInventory(), "the view should not be rebuilt");
+		assertEquals(3, inventory.size());
+		assertTrue(inventory.contains(coin));
+		assertThrows(UnsupportedOperationException.class, () -> inventory.add(new Apple()));
+		assertThrows(UnsupportedOperationException.class, () -> inventory.remove(coin));
+
+		Set<Item> contents = character.getInventoryContents();
+		assertEquals(2, contents.size());
+		assertFalse(contents.contains(coin), "only the items carried directly");
+
+		Collection<GoldCoin> coins = character.getInventory(GoldCoin.class);
+		Collection<Item> apples = character.getInventory(Apple.TYPE);
+		assertEquals(Collections.singletonList(coin), new ArrayList<>(coins));
+		assertEquals(Collections.singletonList(apple), new ArrayList<>(apples));
+		assertThrows(UnsupportedOperationException.class, () -> coins.iterator().remove());
+
+		character.drop(coin);
+		assertTrue(coins.isEmpty());
+		assertFalse(inventory.contains(coin));
+		assertEquals(2, inventory.size());
+	}
+}
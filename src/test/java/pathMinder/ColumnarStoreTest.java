@@ -0,0 +1,88 @@
+package pathMinder;
+
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import pathMinder.core.*;
+
+public class ColumnarStoreTest {
+
+	@Test
+	public void testAddRemove() {
+		ColumnarStore store = new ColumnarStore(2);
+		int pouch = store.create(BeltPouch.TYPE);
+		int backpack = store.create(Backpack.TYPE);
+		int coins = store.create(GoldCoin.TYPE, 100);
+
+		assertTrue(store.add(coins, pouch));
+		assertFalse(store.add(coins, backpack), "coins are already in the pouch");
+		assertTrue(store.add(pouch, backpack));
+		assertEquals(2, store.size(backpack));
+		assertEquals(1, store.getCount(backpack));
+		assertEquals(Backpack.TYPE.getWeight() + BeltPouch.TYPE.getWeight() + 100 * GoldCoin.TYPE.getWeight(), store.getWeight(backpack), 1e-4);
+		assertTrue(store.contains(backpack, coins));
+		assertFalse(store.contains(pouch, backpack));
+		assertFalse(store.fits(backpack, pouch), "a container cannot contain its ancestor");
+
+		int hoard = store.create(GoldCoin.TYPE, 1000);
+		assertThrows(TooManyItemsException.class, () -> store.add(hoard, pouch), "a belt pouch holds at most 10 pounds");
+
+		assertTrue(store.remove(coins));
+		assertFalse(store.remove(coins));
+		assertEquals(1, store.size(backpack));
+		assertEquals(Backpack.TYPE.getWeight() + BeltPouch.TYPE.getWeight(), store.getWeight(backpack), 1e-4);
+		assertEquals(ColumnarStore.NONE, store.getContainer(coins));
+	}
+
+	@Test
+	public void testMoveAndScan() {
+		ColumnarStore store = new ColumnarStore();
+		int barrel = store.create(Barrel.TYPE);
+		int backpack = store.create(Backpack.TYPE);
+		int[] items = new int[10];
+		for(int i = 0; i < items.length; i++) {
+			items[i] = store.create(i % 2 == 0 ? Apple.TYPE : SilverCoin.TYPE);
+			store.add(items[i], backpack);
+		}
+		store.add(backpack, barrel);
+
+		assertEquals(Barrel.TYPE.getVolume() + Barrel.TYPE.getMaxVolume(), store.getVolume(barrel), "rigid containers are always full");
+		assertEquals(11, store.size(barrel));
+		assertEquals(5, store.count(barrel, Apple.TYPE));
+		assertEquals(Backpack.TYPE.getCost() + 5L * Apple.TYPE.getCost() + 5L * SilverCoin.TYPE.getCost(), store.getContentsCost(barrel));
+		assertArrayEquals(items, store.getContents(backpack));
+
+		assertTrue(store.move(items[4], barrel));
+		assertEquals(9, store.getCount(backpack));
+		assertEquals(11, store.size(barrel));
+		assertEquals(2, store.getCount(barrel));
+		assertEquals(barrel, store.getContainer(items[4]));
+
+		int[] visited = {0};
+		store.forEach(barrel, id -> visited[0]++);
+		assertEquals(store.size(barrel), visited[0]);
+
+		store.remove(backpack);
+		store.delete(backpack);
+		assertEquals(2, store.getItemCount());
+		assertFalse(store.exists(items[0]));
+		assertThrows(IllegalArgumentException.class, () -> store.getWeight(items[0]));
+		assertThrows(IllegalStateException.class, () -> store.delete(items[4]));
+	}
+
+	@Test
+	public void testLoad() {
+		Backpack backpack = new Backpack();
+		BeltPouch pouch = new BeltPouch();
+		pouch.add(new ItemStack(new GoldCoin(), 50));
+		backpack.add(pouch);
+		backpack.add(new Apple());
+
+		ColumnarStore store = new ColumnarStore();
+		int id = store.load(backpack);
+		assertEquals(backpack.size(), store.size(id));
+		assertEquals(backpack.getWeight(), store.getWeight(id), 1e-4);
+		assertEquals(50, store.count(id, GoldCoin.TYPE));
+	}
+}
@@ -0,0 +1,188 @@
+package pathMinder;
+
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import pathMinder.core.*;
+
+public class ConcurrentItemGroupTest {
+
+	private static final int PILES = 8;
+	private static final int ITEMS = 2000;
+	private static final int THREADS = 8;
+	private static final int MOVES = 20000;
+
+	@Test
+	public void testStress() throws Exception {
+		ConcurrentItemGroup[] piles = new ConcurrentItemGroup[PILES];
+		for(int i = 0; i < PILES; i++) piles[i] = new ConcurrentItemGroup("Pile " + i, Float.MAX_VALUE, Float.MAX_VALUE, ITEMS / 4);
+
+		//some items sit in bags within the piles, so moves also cross nesting levels
+		Item[] items = new Item[ITEMS];
+		for(int i = 0; i < ITEMS; i++) {
+			items[i] = i % 10 == 0 ? new Backpack() : new GoldCoin();
+			assertTrue(piles[i % PILES].add(items[i]));
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicBoolean done = new AtomicBoolean(false);
+		List<Future<?>> futures = new ArrayList<>();
+
+		for(int t = 0; t < THREADS; t++) {
+			long seed = t;
+			futures.add(executor.submit(() -> {
+				Random random = new Random(seed);
+				start.await();
+				for(int i = 0; i < MOVES; i++) {
+					Item item = items[random.nextInt(ITEMS)];
+					ConcurrentItemGroup from = piles[random.nextInt(PILES)];
+					Container to = random.nextInt(4) == 0 ? (Container) items[10 * random.nextInt(ITEMS / 10)] : piles[random.nextInt(PILES)];
+					from.move(item, to); //usually fails, as item is rarely in from
+				}
+				return null;
+			}));
+		}
+
+		//readers run alongside the writers, and must always see a consistent capacity
+		futures.add(executor.submit(() -> {
+			start.await();
+			while(!done.get()) for(ConcurrentItemGroup pile : piles) assertTrue(pile.getCount() <= ITEMS / 4, "a capacity check was raced past");
+			return null;
+		}));
+
+		start.countDown();
+		for(int i = 0; i < THREADS; i++) futures.get(i).get(60, TimeUnit.SECONDS);
+		done.set(true);
+		futures.get(THREADS).get(60, TimeUnit.SECONDS);
+		executor.shutdown();
+
+		//no item was lost or duplicated
+		int total = 0;
+		Set<Item> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+		for(ConcurrentItemGroup pile : piles) {
+			total += pile.size();
+			for(Item item : pile) assertTrue(seen.add(item), "an item was duplicated");
+			assertTrue(pile.getCount() <= ITEMS / 4);
+
+			float weight = 0;
+			for(Item item : pile) if(item.getContainer() == pile) weight += item.getWeight();
+			assertEquals(weight, pile.getWeight(), 0.5, "cached weight should match contents");
+		}
+		assertEquals(ITEMS, total, "an item was lost");
+		assertEquals(ITEMS, seen.size());
+		for(Item item : items) assertTrue(item.isContained());
+	}
+
+	@Test
+	public void testFindWhileWriting() throws Exception {
+		ConcurrentItemGroup pile = new ConcurrentItemGroup("Pile", Float.MAX_VALUE, Float.MAX_VALUE, Integer.MAX_VALUE);
+		for(int i = 0; i < 100; i++) pile.add(i % 10 == 0 ? new Backpack() : new GoldCoin());
+
+		ExecutorService executor = Executors.newFixedThreadPool(2 * THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+
+		for(int t = 0; t < THREADS; t++) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				for(int i = 0; i < MOVES / 10; i++) {
+					GoldCoin coin = new GoldCoin();
+					pile.add(coin);
+					pile.remove(coin);
+				}
+				return null;
+			}));
+			futures.add(executor.submit(() -> {
+				start.await();
+				for(int i = 0; i < MOVES / 100; i++) {
+					assertTrue(pile.findByName("Coin, gold").size() >= 90);
+					assertEquals(10, pile.findByClass(Backpack.class).size());
+					assertFalse(pile.findByWeight(0, 1).isEmpty());
+					assertFalse(pile.findByCost(100, 100).isEmpty());
+					assertEquals(10, pile.findByCapacity(1, 1).size());
+				}
+				return null;
+			}));
+		}
+
+		start.countDown();
+		for(Future<?> future : futures) future.get(60, TimeUnit.SECONDS); //a reader re-entering the read lock could deadlock with a writer
+		executor.shutdown();
+	}
+
+	@Test
+	public void testConcurrentMerges() throws Exception {
+		ConcurrentItemGroup purse = new ConcurrentItemGroup("Purse", 10, Float.MAX_VALUE, THREADS); //room for 500 coins
+		ItemStack[] stacks = new ItemStack[THREADS];
+		for(int t = 0; t < THREADS; t++) purse.add(stacks[t] = new ItemStack(new GoldCoin(), 1));
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+		for(ItemStack stack : stacks) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				try {
+					for(;;) stack.merge(new GoldCoin()); //each thread grows its own stack until the purse is full
+				} catch(TooManyItemsException e) { return null; }
+			}));
+		}
+
+		start.countDown();
+		for(Future<?> future : futures) future.get(60, TimeUnit.SECONDS);
+		executor.shutdown();
+
+		int coins = 0;
+		for(ItemStack stack : stacks) coins += stack.getQuantity();
+		assertEquals(500, coins, "a capacity check was raced past");
+		assertEquals(coins * new GoldCoin().getWeightUnits(), purse.getContentsWeightUnits());
+	}
+
+	@Test
+	public void testMoveBetweenGroups() {
+		ConcurrentItemGroup pile = new ConcurrentItemGroup("Pile", Float.MAX_VALUE, Float.MAX_VALUE, 10);
+		ConcurrentItemGroup other = new ConcurrentItemGroup("Other", Float.MAX_VALUE, Float.MAX_VALUE, 1);
+		Backpack backpack = new Backpack();
+		GoldCoin coin = new GoldCoin(), coin2 = new GoldCoin();
+		pile.add(backpack);
+		pile.add(coin);
+		pile.add(coin2);
+
+		assertTrue(pile.move(coin, backpack), "moving within a group");
+		assertTrue(backpack.contains(coin));
+		assertTrue(pile.move(coin, other), "moving between groups");
+		assertTrue(other.contains(coin));
+		assertFalse(pile.contains(coin));
+		assertFalse(pile.move(coin2, other), "the other group is full");
+		assertTrue(other.move(coin, pile), "moving back");
+		assertEquals(3, pile.size());
+
+		//moving into a group from an ordinary container
+		Backpack loose = new Backpack();
+		GoldCoin coin3 = new GoldCoin();
+		loose.add(coin3);
+		assertTrue(loose.move(coin3, pile));
+		assertSame(pile, coin3.getContainer());
+
+		//iterators traverse a copy, so modifying the group does not invalidate them
+		Iterator<Item> iterator = pile.iterator();
+		pile.remove(coin3);
+		while(iterator.hasNext()) iterator.next();
+
+		//copies are served from the cached snapshot, which is rebuilt after a change
+		Snapshot snapshot = pile.snapshot();
+		assertSame(snapshot, pile.snapshot());
+		assertArrayEquals(snapshot.stream().map(Snapshot::getItem).toArray(), pile.toArray());
+		assertEquals(3, pile.toArray(new Item[3]).length);
+		pile.add(coin3);
+		assertNotSame(snapshot, pile.snapshot());
+		assertEquals(4, pile.toArray().length);
+		assertSame(coin3, pile.toArray(new Item[5])[3]);
+	}
+}
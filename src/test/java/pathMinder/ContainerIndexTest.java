@@ -0,0 +1,121 @@
+package pathMinder;
+
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.function.Function;
+
+import pathMinder.core.*;
+
+public class ContainerIndexTest {
+
+	private static ItemGroup pile() { return new ItemGroup("Pile", Float.MAX_VALUE, Float.MAX_VALUE, Integer.MAX_VALUE); }
+
+	@Test
+	public void testQueries() {
+		ItemGroup pile = pile();
+		Barrel barrel = new Barrel();
+		Backpack backpack = new Backpack();
+		ItemStack arrows = new ItemStack(new Arrow(), 20);
+		pile.add(barrel);
+		barrel.add(backpack);
+		backpack.add(arrows);
+		for(int i = 0; i < 3; i++) backpack.add(new Apple());
+		pile.add(new Apple());
+
+		pile.buildIndex();
+		assertTrue(pile.isIndexed());
+		assertFalse(backpack.isIndexed());
+
+		assertEquals(4, pile.findByName("Apple").size());
+		assertEquals(3, backpack.findByName("Apple").size(), "served by the pile's index, narrowed to the backpack");
+		assertEquals(0, pile.findByName("Pile").size(), "the indexed container is not within itself");
+		assertEquals(Arrays.asList(backpack, barrel), sorted(pile.findByClass(Container.class)));
+		assertEquals(Collections.singletonList(arrows), barrel.findByClass(ItemStack.class));
+
+		//the arrows cost 100 and weigh 3; both change as the stack is split
+		assertEquals(Collections.singletonList(arrows), pile.findByCost(100, 100));
+		ItemStack split = arrows.split(10);
+		assertEquals(Collections.singletonList(arrows), pile.findByCost(50, 50));
+		assertEquals(Collections.singletonList(arrows), pile.findByWeight(1.5f, 1.5f));
+		assertFalse(pile.findByCost(0, Float.MAX_VALUE).contains(split), "the split stack is in no container");
+
+		//ordered from lightest to heaviest, with containers weighing their contents
+		List<Item> weights = pile.findByWeight(0, Float.MAX_VALUE);
+		assertEquals(pile.size(), weights.size());
+		assertSame(barrel, weights.get(weights.size() - 1));
+		for(int i = 1; i < weights.size(); i++) assertTrue(weights.get(i - 1).getWeight() <= weights.get(i).getWeight());
+
+		//remaining capacity follows the contents of each container
+		assertEquals(Arrays.asList(backpack, barrel), pile.findByCapacity(0, 1));
+		for(int i = 0; i < 13; i++) backpack.add(new Apple());
+		assertEquals(Collections.singletonList(barrel), pile.findByCapacity(0, 1));
+		assertTrue(pile.findByCapacity(1000, 1).isEmpty(), "the barrel holds at most 650 lb.");
+
+		//items leaving the tree leave the index, contents and all
+		pile.remove(backpack);
+		assertEquals(1, pile.findByName("Apple").size());
+		assertTrue(pile.findByClass(ItemStack.class).isEmpty());
+		assertEquals(16, backpack.findByName("Apple").size(), "unindexed containers scan their contents");
+
+		pile.dropIndex();
+		assertFalse(pile.isIndexed());
+		assertEquals(1, pile.findByName("Apple").size());
+	}
+
+	@Test
+	public void testConsistency() {
+		Random random = new Random(20);
+		ItemGroup pile = pile();
+		pile.buildIndex();
+		List<Container> containers = new ArrayList<>(Collections.singletonList(pile));
+		List<Item> items = new ArrayList<>();
+
+		for(int step = 0; step < 2000; step++) {
+			Container target = containers.get(random.nextInt(containers.size()));
+			switch(random.nextInt(5)) {
+				case 0:
+					Backpack backpack = new Backpack();
+					if(!target.fits(backpack)) break;
+					target.add(backpack);
+					containers.add(backpack);
+					if(containers.size() % 5 == 0) backpack.buildIndex(); //nested indexes are re-keyed on the same pass up
+					break;
+				case 1: case 2:
+					Item item = random.nextBoolean() ? new Apple() : new ItemStack(new Arrow(), 1 + random.nextInt(30));
+					if(target.fits(item)) { target.add(item); items.add(item); }
+					break;
+				case 3:
+					if(!items.isEmpty()) pile.move(items.get(random.nextInt(items.size())), target);
+					break;
+				case 4:
+					if(!items.isEmpty()) pile.remove(items.remove(random.nextInt(items.size())));
+					break;
+			}
+
+			if(step % 50 != 0) continue;
+			float min = random.nextFloat() * 5, max = min + random.nextFloat() * 20;
+			Container query = containers.get(random.nextInt(containers.size()));
+			assertEquals(scan(query, item -> item.getName().equals("Apple")), new HashSet<>(query.findByName("Apple")));
+			assertEquals(scan(query, item -> item.getWeight() >= min && item.getWeight() <= max), new HashSet<>(query.findByWeight(min, max)));
+			assertEquals(scan(query, item -> item.getCost() >= min && item.getCost() <= max), new HashSet<>(query.findByCost(min, max)));
+			assertEquals(
+				scan(query, item -> item instanceof Container && ((Container) item).getContentsVolume() <= 1),
+				new HashSet<>(query.findByCapacity(0, 1)));
+		}
+		for(Container container : containers) container.dropIndex();
+	}
+
+	private static Set<Item> scan(Container container, Function<Item, Boolean> predicate) {
+		Set<Item> found = new HashSet<>();
+		for(Item item : container) if(predicate.apply(item)) found.add(item);
+		return found;
+	}
+
+	private static List<Container> sorted(List<Container> containers) {
+		containers.sort(Comparator.comparing(Container::getName));
+		return containers;
+	}
+}
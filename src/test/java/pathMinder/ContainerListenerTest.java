@@ -0,0 +1,127 @@
+package pathMinder;
+
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import pathMinder.core.*;
+
+public class ContainerListenerTest {
+
+	private static String describe(ContainerEvent event) {
+		return event.getType() + " " + event.getItem().getName();
+	}
+
+	@Test
+	public void testBubbling() {
+		ItemGroup pile = new ItemGroup("Pile", Float.MAX_VALUE, Float.MAX_VALUE, Integer.MAX_VALUE);
+		Backpack backpack = new Backpack(), other = new Backpack();
+		pile.add(backpack);
+		pile.add(other);
+
+		List<ContainerEvent> pileEvents = new ArrayList<>(), backpackEvents = new ArrayList<>();
+		ContainerListener pileListener = pileEvents::add;
+		pile.addListener(pileListener);
+		backpack.addListener(backpackEvents::add);
+
+		//changes deep within the tree reach every ancestor
+		Apple apple = new Apple();
+		backpack.add(apple);
+		assertEquals(1, pileEvents.size());
+		assertEquals(1, backpackEvents.size());
+		assertSame(pileEvents.get(0), backpackEvents.get(0));
+		assertEquals(ContainerEvent.Type.ADDED, pileEvents.get(0).getType());
+		assertNull(pileEvents.get(0).getFrom());
+		assertSame(backpack, pileEvents.get(0).getTo());
+
+		//a move within one tree is reported once to the common ancestor
+		assertTrue(pile.move(apple, other));
+		assertEquals(2, pileEvents.size());
+		assertEquals(2, backpackEvents.size());
+		assertEquals(ContainerEvent.Type.MOVED, pileEvents.get(1).getType());
+		assertSame(backpack, pileEvents.get(1).getFrom());
+		assertSame(other, pileEvents.get(1).getTo());
+
+		assertTrue(pile.remove(apple));
+		assertEquals(ContainerEvent.Type.REMOVED, pileEvents.get(2).getType());
+		assertEquals(2, backpackEvents.size(), "the apple was no longer in the backpack");
+
+		//quantity changes are reported as well
+		ItemStack arrows = new ItemStack(new Arrow(), 20);
+		backpack.add(arrows);
+		arrows.split(5);
+		assertEquals(ContainerEvent.Type.CHANGED, pileEvents.get(pileEvents.size() - 1).getType());
+
+		assertTrue(pile.removeListener(pileListener));
+		assertFalse(pile.removeListener(pileListener));
+		int count = pileEvents.size();
+		pile.clear();
+		assertEquals(count, pileEvents.size(), "a removed listener is not notified");
+		assertEquals(4, backpackEvents.size(), "removing the backpack from the pile does not change the backpack");
+	}
+
+	@Test
+	public void testBatch() {
+		ItemGroup pile = new ItemGroup("Pile", Float.MAX_VALUE, Float.MAX_VALUE, Integer.MAX_VALUE);
+		Backpack backpack = new Backpack(), other = new Backpack();
+		pile.add(backpack);
+		pile.add(other);
+		Apple apple = new Apple(), core = new Apple();
+		GoldCoin coin = new GoldCoin();
+		backpack.add(apple);
+
+		List<String> events = new ArrayList<>();
+		pile.addListener(event -> events.add(describe(event)));
+
+		try(EventBatch batch = EventBatch.open()) {
+			pile.move(apple, other);
+			pile.move(apple, pile);
+			pile.move(apple, other); //three moves coalesce into one
+
+			backpack.add(coin);
+			pile.remove(coin); //added and removed; nothing to report
+
+			try(EventBatch nested = EventBatch.open()) {
+				pile.add(core);
+			}
+			assertTrue(events.isEmpty(), "events are delivered when the outermost batch closes");
+		}
+
+		assertEquals(Arrays.asList("MOVED Apple", "ADDED Apple"), events);
+
+		//bulk operations deliver a single coalesced batch
+		events.clear();
+		pile.removeAll(Arrays.asList(apple, core));
+		assertEquals(Arrays.asList("REMOVED Apple", "REMOVED Apple"), events);
+
+		EventBatch batch = EventBatch.open();
+		batch.close();
+		assertThrows(IllegalStateException.class, batch::close);
+	}
+
+	@Test
+	public void testBatchedAncestors() {
+		ItemGroup pile = new ItemGroup("Pile", Float.MAX_VALUE, Float.MAX_VALUE, Integer.MAX_VALUE);
+		Backpack backpack = new Backpack();
+		BeltPouch pouch = new BeltPouch();
+		GoldCoin coin = new GoldCoin();
+		pile.add(backpack);
+		backpack.add(pouch);
+		pouch.add(coin);
+
+		List<ContainerEvent> events = new ArrayList<>(), backpackEvents = new ArrayList<>();
+		pile.addListener(events::add);
+		backpack.addListener(backpackEvents::add);
+
+		//the pouch has left the pile by the time the batch delivers the coin's removal, but the pile still hears of it
+		assertTrue(pile.removeAll(Arrays.asList(coin, pouch)));
+		assertEquals(2, events.size());
+		assertSame(coin, events.get(0).getItem());
+		assertEquals(ContainerEvent.Type.REMOVED, events.get(0).getType());
+		assertSame(pouch, events.get(0).getFrom());
+		assertSame(pouch, events.get(1).getItem());
+		assertEquals(events, backpackEvents);
+	}
+}
@@ -4,9 +4,13 @@ package pathMinder;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
 
 import pathMinder.core.Container;
 import pathMinder.core.Item;
@@ -35,6 +39,76 @@ public class ContainerTest {
 		assertThrows(TooManyItemsException.class, ()-> { bag1.add(new Ball(0, 6f, 1)); });
 	}
 
+	@Test
+	public void testAddAll() {
+		Bag bag = new Bag();
+		List<Ball> balls = new ArrayList<>();
+		for(int i = 0; i < 8; i++) balls.add(new Ball());
+
+		assertTrue(bag.addAll(balls));
+		assertEquals(8, bag.size());
+		assertEquals(9, bag.getWeight());
+		assertFalse(bag.addAll(balls), "balls are already in bag");
+
+		//the whole batch is rejected if any part of it does not fit
+		List<Ball> more = Arrays.asList(new Ball(), new Ball(), new Ball());
+		TooManyItemsException e = assertThrows(TooManyItemsException.class, () -> bag.addAll(more));
+		assertEquals(Collections.singletonList(more.get(2)), e.getRejected());
+		assertEquals(8, bag.size(), "a failed batch should not modify the container");
+		for(Ball ball : more) assertFalse(ball.isContained());
+
+		//self-containing items are rejected
+		Bag inner = new Bag();
+		bag.add(inner);
+		assertThrows(TooManyItemsException.class, () -> inner.addAll(Collections.singleton(bag)));
+	}
+
+	@Test
+	public void testBulkRemove() {
+		Bag bag = new Bag();
+		Bag inner = new Bag();
+		Ball ball1 = new Ball(), ball2 = new Ball(), ball3 = new Ball();
+		inner.add(ball1);
+		inner.add(ball2);
+		bag.add(inner);
+		bag.add(ball3);
+
+		assertTrue(bag.removeAll(Arrays.asList(ball1, ball3, new Ball())));
+		assertEquals(2, bag.size());
+		assertEquals(1 + 1 + 1, bag.getWeight());
+		assertFalse(ball1.isContained());
+		assertFalse(bag.removeAll(Collections.singleton(ball1)), "ball1 was already removed");
+
+		bag.add(ball1);
+		assertTrue(bag.retainAll(Arrays.asList(inner, ball1)));
+		assertEquals(2, bag.size(), "ball2 should have been removed from inner");
+		assertFalse(ball2.isContained());
+		assertFalse(bag.retainAll(Arrays.asList(inner, ball1)));
+
+		bag.clear();
+		assertTrue(bag.isEmpty());
+		assertEquals(0, bag.size());
+		assertEquals(1, bag.getWeight());
+		assertNull(inner.getContainer());
+		assertNull(ball1.getContainer());
+	}
+
+	@Test
+	public void testToArray() {
+		Bag bag = new Bag();
+		Bag inner = new Bag();
+		Ball ball = new Ball();
+		inner.add(ball);
+		bag.add(inner);
+
+		assertArrayEquals(new Item[] {inner, ball}, bag.toArray(new Item[0]));
+
+		Item[] large = new Item[] {null, null, new Ball(), new Ball()};
+		assertSame(large, bag.toArray(large));
+		assertNull(large[2]);
+		assertThrows(ArrayStoreException.class, () -> bag.toArray(new Ball[0]));
+	}
+
 	@Test
 	public void testRemove() {
 		Bag bag = new Bag();
@@ -49,7 +123,7 @@ public class ContainerTest {
 		assertThrows(NullPointerException.class, ()->bag.remove(null), "remove(Item) should not accept null arguments");
 		assertTrue(bag.remove(ball), "ball should've been removed");
 		assertTrue(bag.remove(innerBag), "innerBag should've been removed");
-		//assertNull(ball.getContainer(), "removed ball should no longer have a parent"); ----Removal of items referencing their containers nullifies this test.----
+		assertNull(ball.getContainer(), "removed ball should no longer have a parent");
 		assertEquals(0, innerBag.size(), "innerBag should be empty");
 		assertTrue(innerBag2.add(ball), "Ball should not be in another container.");
 		
@@ -136,6 +210,36 @@ public class ContainerTest {
 
 	}
 
+	@Test
+	public void testCachedTotals() {
+		Bag outer = new Bag();
+		Bag inner = new Bag();
+		Box box = new Box();
+		Ball ball = new Ball(2, 3, 1);
+
+		outer.add(inner);
+		outer.add(box);
+		inner.add(ball);
+		assertEquals(1 + 1 + 2 + 1, outer.getWeight(), "nested weight should reach the outer bag");
+		assertEquals(3 + 10, outer.getVolume(), "a rigid box should count as full");
+		assertEquals(3, outer.size());
+
+		//moving into a rigid container changes weight but not the outer volume
+		assertTrue(inner.move(ball, box));
+		assertEquals(1 + 1 + 2 + 1, outer.getWeight());
+		assertEquals(10, outer.getVolume());
+		assertEquals(3, box.getContentsVolume());
+		assertEquals(1, inner.getWeight(), "inner bag should be empty");
+		assertTrue(ball.isContained());
+
+		//removing a nested item updates every ancestor
+		assertTrue(outer.remove(ball));
+		assertEquals(1 + 1 + 1, outer.getWeight());
+		assertEquals(0, box.getContentsVolume());
+		assertEquals(2, outer.size());
+		assertFalse(ball.isContained());
+	}
+
 	@Test
 	public void testSize()  {
 		//test empty container
@@ -255,6 +359,29 @@ public class ContainerTest {
 		}
 	}
 
+	@Test
+	public void testLocate() {
+		Bag outer = new Bag();
+		Bag middle = new Bag();
+		Bag inner = new Bag();
+		Ball ball = new Ball();
+
+		inner.add(ball);
+		middle.add(inner);
+		outer.add(middle);
+
+		assertEquals(Arrays.asList(outer, middle, inner), outer.locate(ball));
+		assertEquals(Arrays.asList(middle, inner), middle.locate(ball));
+		assertEquals(Collections.singletonList(outer), outer.locate(middle));
+		assertTrue(inner.locate(middle).isEmpty(), "middle is not within inner");
+		assertTrue(outer.locate(outer).isEmpty(), "a container does not contain itself");
+		assertSame(inner, ball.getContainer());
+
+		assertTrue(outer.remove(inner));
+		assertTrue(outer.locate(ball).isEmpty(), "ball left outer along with inner");
+		assertEquals(Collections.singletonList(inner), inner.locate(ball));
+	}
+
 	@Test
 	public void testContainsAll() {
 
@@ -332,6 +459,50 @@ public class ContainerTest {
 		Iterator<Item> innerIterator = inner.iterator();
 		outer.add(new Ball());
 		innerIterator.next();
+
+		//modifications are detected however deep they occur
+		Bag deepest = new Bag();
+		Bag middle = new Bag();
+		middle.add(deepest);
+		Bag top = new Bag();
+		top.add(middle);
+		Iterator<Item> topIterator = top.iterator();
+		topIterator.next();
+		deepest.add(new Ball());
+		assertThrows(ConcurrentModificationException.class, topIterator::hasNext);
+	}
+
+	@Test
+	public void testIteratorRemove() {
+		Bag bag = new Bag();
+		Bag inner = new Bag();
+		Ball ball1 = new Ball(), ball2 = new Ball(), ball3 = new Ball();
+		inner.add(ball1);
+		inner.add(ball2);
+		bag.add(inner);
+		bag.add(ball3);
+
+		Iterator<Item> iterator = bag.iterator();
+		assertThrows(IllegalStateException.class, iterator::remove);
+		assertSame(inner, iterator.next());
+		assertSame(ball1, iterator.next());
+		iterator.remove();
+		assertThrows(IllegalStateException.class, iterator::remove, "an item may only be removed once");
+		assertSame(ball2, iterator.next());
+		assertSame(ball3, iterator.next());
+		assertFalse(iterator.hasNext());
+		assertFalse(ball1.isContained());
+		assertEquals(3, bag.size());
+
+		//removing a container skips its contents
+		iterator = bag.iterator();
+		assertSame(inner, iterator.next());
+		iterator.remove();
+		assertSame(ball3, iterator.next());
+		assertFalse(iterator.hasNext());
+		assertEquals(1, bag.size());
+		assertEquals(1 + 1, bag.getWeight());
+		assertSame(inner, ball2.getContainer(), "a removed container keeps its contents");
 	}
 
 	private static class Box extends Container {
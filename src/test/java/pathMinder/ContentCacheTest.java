@@ -0,0 +1,130 @@
+package pathMinder;
+
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+import pathMinder.core.*;
+
+public class ContentCacheTest {
+
+	@TempDir
+	Path directory;
+
+	private static long files(Path directory) throws IOException {
+		try(Stream<Path> files = Files.list(directory)) { return files.count(); }
+	}
+
+	@Test
+	public void testEviction() throws IOException {
+		ItemGroup warehouse = new ItemGroup("Warehouse", Float.MAX_VALUE, Float.MAX_VALUE, Integer.MAX_VALUE);
+		ContentCache cache = new ContentCache(new FileContentStore(directory), 1000);
+		List<Barrel> barrels = new ArrayList<>();
+		for(int i = 0; i < 10; i++) {
+			Barrel barrel = new Barrel();
+			warehouse.add(barrel);
+			Backpack backpack = new Backpack();
+			backpack.nickName = "Backpack " + i;
+			barrel.add(backpack);
+			for(int j = 0; j < 20; j++) backpack.add(new GoldCoin());
+			barrel.add(new ItemStack(new Arrow(), 50));
+			cache.manage(barrel);
+			barrels.add(barrel);
+		}
+
+		float weight = warehouse.getWeight();
+		int size = warehouse.size();
+		Barrel barrel = barrels.get(3);
+		Item backpack = barrel.iterator().next();
+		assertTrue(cache.evict(barrel));
+		assertFalse(cache.evict(barrel), "already evicted");
+		assertEquals(1, files(directory));
+
+		//cached totals remain available without loading the contents
+		assertEquals(weight, warehouse.getWeight(), 1e-3);
+		assertEquals(size, warehouse.size());
+		assertEquals(2, barrel.getCount());
+		assertFalse(barrel.isEmpty());
+		assertTrue(warehouse.contains(barrel));
+		assertTrue(cache.isEvicted(barrel));
+		assertFalse(backpack.isContained(), "evicted items are detached");
+
+		//the first access loads the contents back
+		Item loaded = barrel.iterator().next();
+		assertFalse(cache.isEvicted(barrel));
+		assertNotSame(backpack, loaded);
+		assertEquals("Backpack 3", loaded.nickName);
+		assertEquals(22, barrel.size());
+		assertEquals(weight, warehouse.getWeight(), 1e-3);
+		assertEquals(0, files(directory), "loaded contents are released from the store");
+
+		//loaded contents are fully functional
+		assertTrue(barrel.remove(loaded));
+		assertEquals(1, barrel.getCount());
+		assertEquals(size - 21, warehouse.size());
+	}
+
+	@Test
+	public void testTrim() throws IOException {
+		ItemGroup warehouse = new ItemGroup("Warehouse", Float.MAX_VALUE, Float.MAX_VALUE, Integer.MAX_VALUE);
+		ContentCache cache = new ContentCache(new FileContentStore(directory), 100);
+		List<Backpack> backpacks = new ArrayList<>();
+		for(int i = 0; i < 10; i++) {
+			Backpack backpack = new Backpack();
+			warehouse.add(backpack);
+			for(int j = 0; j < 20; j++) backpack.add(new Apple());
+			cache.manage(backpack);
+			backpacks.add(backpack);
+		}
+		assertEquals(200, cache.getLoadedItems());
+
+		backpacks.get(0).iterator().next(); //the first backpack is the most recently used
+		cache.trim();
+		assertTrue(cache.getLoadedItems() <= 100);
+		assertFalse(cache.isEvicted(backpacks.get(0)), "recently used containers stay loaded");
+		assertTrue(cache.isEvicted(backpacks.get(1)), "the least recently used containers are evicted first");
+
+		//iterating the warehouse loads everything back
+		int count = 0;
+		for(Item item : warehouse) count++;
+		assertEquals(210, count);
+		assertEquals(200, cache.getLoadedItems());
+
+		assertTrue(cache.release(backpacks.get(1)));
+		assertFalse(cache.isManaged(backpacks.get(1)));
+		assertThrows(IllegalArgumentException.class, () -> cache.evict(backpacks.get(1)));
+	}
+
+	@Test
+	public void testParallelAggregation() throws IOException {
+		ItemGroup warehouse = new ItemGroup("Warehouse", Float.MAX_VALUE, Float.MAX_VALUE, Integer.MAX_VALUE);
+		ContentCache cache = new ContentCache(new FileContentStore(directory), Integer.MAX_VALUE);
+		List<ItemGroup> crates = new ArrayList<>();
+		for(int i = 0; i < 16; i++) {
+			ItemGroup crate = new ItemGroup("Crate", Float.MAX_VALUE, Float.MAX_VALUE, Integer.MAX_VALUE);
+			List<Item> coins = new ArrayList<>();
+			for(int j = 0; j < 1000; j++) coins.add(new GoldCoin());
+			crate.addAll(coins);
+			warehouse.add(crate);
+			cache.manage(crate);
+			crates.add(crate);
+		}
+		for(ItemGroup crate : crates) assertTrue(cache.evict(crate));
+
+		//large enough to be traversed in parallel, so the crates are loaded from the fork-join workers
+		assertEquals(16000, warehouse.count(item -> item instanceof GoldCoin));
+		assertEquals(16000 * 100L, warehouse.getContentsCostUnits());
+		for(ItemGroup crate : crates) {
+			assertFalse(cache.isEvicted(crate));
+			assertEquals(1000, crate.getCount(), "the contents were loaded exactly once");
+		}
+		assertEquals(16016, cache.getLoadedItems() + 16);
+	}
+}
@@ -0,0 +1,99 @@
+package pathMinder;
+
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Random;
+
+import pathMinder.core.*;
+import pathMinder.core.Character;
+
+public class EncumbranceTest {
+
+	@Test
+	public void testCapacity() {
+		//See Core Rulebook Table 7-4
+		assertEquals(33, Encumbrance.Light.getCapacity(10));
+		assertEquals(66, Encumbrance.Medium.getCapacity(10));
+		assertEquals(100, Encumbrance.Heavy.getCapacity(10));
+		assertEquals(200, Encumbrance.Overencumbered.getCapacity(10));
+		assertEquals(1400, Encumbrance.Heavy.getCapacity(29));
+
+		//tremendous strength multiplies by 4 for every 10 points
+		assertEquals(1600, Encumbrance.Heavy.getCapacity(30));
+		assertEquals(4 * 1400, Encumbrance.Heavy.getCapacity(39));
+		assertEquals(4 * 1600, Encumbrance.Heavy.getCapacity(40));
+		assertEquals(Integer.MAX_VALUE, Encumbrance.Heavy.getCapacity(200), "capacities beyond an int should saturate");
+	}
+
+	@Test
+	public void testGetEncumbrance() {
+		//the table agrees with getCapacity at every boundary
+		for(int strength = 0; strength < 60; strength++) {
+			for(Encumbrance encumbrance : Encumbrance.values()) {
+				if(encumbrance == Encumbrance.Atlassian) continue;
+				float capacity = encumbrance.getCapacity(strength);
+				if(capacity >= 1 << 24) continue; //beyond float's exact integers
+				if(capacity > 0) assertTrue(Encumbrance.getEncumbrance(capacity, strength).compareTo(encumbrance) <= 0, "at capacity");
+				assertTrue(Encumbrance.getEncumbrance(capacity + 1, strength).compareTo(encumbrance) > 0, "over capacity");
+			}
+		}
+
+		assertEquals(Encumbrance.Light, Encumbrance.getEncumbrance(0, 0));
+		assertEquals(Encumbrance.Atlassian, Encumbrance.getEncumbrance(1, 0));
+		assertEquals(Encumbrance.Light, Encumbrance.getEncumbrance(1e9f, 200), "strength beyond the table");
+		assertNull(Encumbrance.getEncumbrance(Float.MAX_VALUE, 10));
+	}
+
+	@Test
+	public void testSize() {
+		//See Core Rulebook Table 7-5
+		assertEquals(Encumbrance.Medium, Encumbrance.getEncumbrance(50, 10, Size.Medium, false));
+		assertEquals(Encumbrance.Light, Encumbrance.getEncumbrance(49, 10, Size.Medium, true));
+		assertEquals(Encumbrance.Light, Encumbrance.getEncumbrance(66, 10, Size.Large, false));
+		assertEquals(Encumbrance.Heavy, Encumbrance.getEncumbrance(75, 10, Size.Small, false));
+		assertEquals(Encumbrance.Overencumbered, Encumbrance.getEncumbrance(76, 10, Size.Small, false));
+		assertEquals(Encumbrance.Overencumbered, Encumbrance.getEncumbrance(20, 10, Size.Fine, false));
+		assertEquals(300f, Encumbrance.Heavy.getCapacity(10, Size.Large, true), 0);
+		assertEquals(2400f, Encumbrance.Heavy.getCapacity(10, Size.Colossal, true), 0);
+	}
+
+	@Test
+	public void testBatch() {
+		//large enough to be evaluated in parallel
+		int count = 20_000;
+		Random random = new Random(24);
+		float[] weights = new float[count];
+		int[] strengths = new int[count], speeds = new int[count];
+		for(int i = 0; i < count; i++) {
+			strengths[i] = random.nextInt(200);
+			weights[i] = random.nextFloat() * 3 * Encumbrance.Heavy.getCapacity(Math.min(strengths[i], 60));
+			speeds[i] = 5 * (1 + random.nextInt(12));
+		}
+		weights[0] = Float.MAX_VALUE;
+
+		EncumbranceBatch batch = new EncumbranceBatch().evaluate(weights, strengths, speeds, count);
+		assertEquals(count, batch.size());
+		for(int i = 0; i < count; i++) {
+			Encumbrance expected = Encumbrance.getEncumbrance(weights[i], strengths[i]);
+			if(expected == null) expected = Encumbrance.Atlassian;
+			assertEquals(expected, batch.getEncumbrance(i));
+			assertEquals(expected.ordinal(), batch.getTiers()[i]);
+			assertEquals(expected.getSpeed(speeds[i]), batch.getSpeed(i));
+			assertEquals(expected.ACP, batch.getACP(i));
+		}
+
+		//the buffers are reused for a smaller batch, and agree with each character's own cached state
+		byte[] tiers = batch.getTiers();
+		Character weak = new Character("Weak", 3, 30), strong = new Character("Strong", 18, 40);
+		weak.pick(new Barrel());
+		batch.evaluate(weak, strong);
+		assertSame(tiers, batch.getTiers());
+		assertEquals(2, batch.size());
+		assertEquals(weak.getEncumbrance(), batch.getEncumbrance(0));
+		assertEquals(weak.getSpeed(), batch.getSpeed(0));
+		assertEquals(strong.getMaxDex(), batch.getMaxDex(1));
+		assertThrows(IndexOutOfBoundsException.class, () -> batch.getSpeed(2));
+	}
+}
@@ -0,0 +1,86 @@
+package pathMinder;
+
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import pathMinder.core.*;
+
+public class ItemStackTest {
+
+	@Test
+	public void testStack() {
+		ItemStack hoard = new ItemStack(new GoldCoin(), 50000);
+		GoldCoin coin = new GoldCoin();
+
+		assertEquals(50000, hoard.getQuantity());
+		assertEquals(coin.getWeightUnits() * 50000, hoard.getWeightUnits());
+		assertEquals(coin.getVolumeUnits() * 50000, hoard.getVolumeUnits());
+		assertEquals(1000f, hoard.getWeight());
+		assertEquals(0.83f, hoard.getVolume());
+		assertEquals(coin.getCost() * 50000, hoard.getCost());
+		assertEquals(coin.getName(), hoard.getName());
+
+		assertThrows(IllegalArgumentException.class, () -> new ItemStack(new Backpack(), 2), "backpacks are not fungible");
+		assertThrows(IllegalArgumentException.class, () -> new ItemStack(new GoldCoin(), 0));
+	}
+
+	@Test
+	public void testContainer() {
+		ItemGroup pile = new ItemGroup("Pile", 1000, 1000, 1);
+		ItemStack hoard = new ItemStack(new GoldCoin(), 10000);
+
+		assertTrue(pile.add(hoard), "a stack is a single entry");
+		assertEquals(1, pile.size());
+		assertEquals(hoard.getWeight(), pile.getWeight());
+	}
+
+	@Test
+	public void testSplitMerge() {
+		Backpack backpack = new Backpack();
+		ItemStack arrows = new ItemStack(new Arrow(), 40);
+		backpack.add(arrows);
+		float weight = backpack.getWeight();
+
+		ItemStack split = arrows.split(15);
+		assertEquals(25, arrows.getQuantity());
+		assertEquals(15, split.getQuantity());
+		assertFalse(split.isContained());
+		assertEquals(weight - split.getWeight(), backpack.getWeight(), 1e-4);
+		assertThrows(IllegalArgumentException.class, () -> arrows.split(25), "a split may not empty the stack");
+
+		//merging another stack
+		ItemGroup quiver = new ItemGroup("Quiver", 100, 100, 100);
+		quiver.add(split);
+		assertTrue(arrows.merge(split));
+		assertEquals(40, arrows.getQuantity());
+		assertEquals(0, split.getQuantity());
+		assertFalse(quiver.contains(split), "a merged stack leaves its container");
+		assertEquals(weight, backpack.getWeight(), 1e-4);
+
+		//merging loose items
+		Arrow arrow = new Arrow();
+		quiver.add(arrow);
+		assertTrue(arrows.merge(arrow));
+		assertEquals(41, arrows.getQuantity());
+		assertFalse(arrow.isContained());
+		assertFalse(arrows.merge(new GoldCoin()), "coins do not stack with arrows");
+		assertFalse(arrows.merge(new ItemStack(new SilverCoin(), 3)));
+	}
+
+	@Test
+	public void testMergeOverflow() {
+		BeltPouch pouch = new BeltPouch();
+		ItemStack coins = new ItemStack(new GoldCoin(), 400);
+		pouch.add(coins);
+
+		ItemGroup pile = new ItemGroup("Pile", 1000, 1000, 1000);
+		ItemStack more = new ItemStack(new GoldCoin(), 200);
+		pile.add(more);
+
+		assertThrows(TooManyItemsException.class, () -> coins.merge(more), "a belt pouch holds at most 10 pounds");
+		assertEquals(400, coins.getQuantity());
+		assertEquals(200, more.getQuantity());
+		assertTrue(pile.contains(more), "a failed merge should leave the item in its container");
+	}
+}
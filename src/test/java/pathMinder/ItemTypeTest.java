@@ -0,0 +1,43 @@
+package pathMinder;
+
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import pathMinder.core.*;
+
+public class ItemTypeTest {
+
+	@Test
+	public void testInterning() {
+		assertSame(new GoldCoin().getType(), new GoldCoin().getType(), "instances of the same item should share a type");
+		assertSame(GoldCoin.TYPE, ItemType.of("Coin, gold", 1/50f, 1.66E-5f, 100));
+		assertNotSame(GoldCoin.TYPE, SilverCoin.TYPE);
+		assertNotSame(
+				ItemType.of("Widget", 1, 1, 1),
+				ItemType.of("Widget", 1, 1, 2),
+				"types with different attributes are distinct");
+
+		assertSame(GoldCoin.TYPE, ItemType.get(GoldCoin.TYPE.getId()));
+		ItemType backpack = Backpack.TYPE; //types are registered when their item class is initialized
+		assertTrue(ItemType.getTypes().contains(backpack));
+		assertEquals(1, ItemType.named("Barrel, wooden").size());
+		assertThrows(IllegalArgumentException.class, () -> ItemType.get(-1));
+	}
+
+	@Test
+	public void testAttributes() {
+		GoldCoin coin = new GoldCoin();
+		assertEquals(GoldCoin.TYPE.getWeight(), coin.getWeight());
+		assertEquals(GoldCoin.TYPE.getName(), coin.getName());
+		assertFalse(GoldCoin.TYPE.isContainer());
+
+		assertTrue(Barrel.TYPE.isContainer());
+		assertTrue(Barrel.TYPE.isRigid());
+		assertEquals(650f, Barrel.TYPE.getMaxWeight());
+
+		ItemGroup pile = new ItemGroup("Pile", 10, 10, 10);
+		assertEquals("Pile", pile.getName(), "item groups keep their own names");
+		assertSame(pile.getType(), new ItemGroup("Heap", 10, 10, 10).getType());
+	}
+}
@@ -0,0 +1,149 @@
+package pathMinder;
+
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import pathMinder.core.*;
+import pathMinder.core.Character;
+
+public class JournalTest {
+
+	@TempDir
+	Path directory;
+
+	/**
+	 * Describes a tree by the names of its items in pre-order, with their quantities and nesting.
+	 */
+	private static String describe(Snapshot snapshot) {
+		return snapshot.getName() + "x" + snapshot.getQuantity()
+				+ snapshot.getContents().stream().map(JournalTest::describe).collect(Collectors.joining(",", "[", "]"));
+	}
+
+	private static String describe(SaveFile state) {
+		return Stream.concat(
+				state.getCharacters().stream().map(Character::getInventorySnapshot),
+				state.getItems().stream().map(Item::snapshot)).map(JournalTest::describe).collect(Collectors.joining(";"));
+	}
+
+	private static long files(Path directory, String glob) throws IOException {
+		try(Stream<Path> files = Files.list(directory)) {
+			return files.filter(file -> file.getFileSystem().getPathMatcher("glob:" + glob).matches(file.getFileName())).count();
+		}
+	}
+
+	@Test
+	public void testRecover() throws IOException {
+		Character character = new Character("Steve", 14, 30);
+		ItemGroup pile = new ItemGroup("Pile", Float.MAX_VALUE, Float.MAX_VALUE, 100);
+		Backpack backpack = new Backpack();
+		pile.add(backpack);
+		ItemStack coins = new ItemStack(new GoldCoin(), 100);
+		backpack.add(coins);
+
+		Journal journal = Journal.create(directory, new SaveFile(Collections.singletonList(character), Collections.singletonList(pile)));
+
+		//changes of every kind, including items entering and leaving the journaled trees
+		Apple apple = new Apple();
+		character.pick(apple);
+		Backpack bag = new Backpack();
+		bag.nickName = "Shiny";
+		bag.add(new Arrow());
+		pile.add(bag);
+		pile.remove(backpack);
+		character.pick(backpack);
+		coins.split(40);
+		character.drop(apple);
+		Apple loose = new Apple();
+		bag.add(loose);
+		bag.remove(loose);
+		try(EventBatch batch = EventBatch.open()) {
+			Backpack sack = new Backpack();
+			pile.move(bag.iterator().next(), sack);
+			pile.add(sack);
+		}
+
+		journal.sync();
+		String expected = describe(journal.getState());
+		journal.close();
+
+		Journal recovered = Journal.recover(directory);
+		assertEquals(expected, describe(recovered.getState()));
+		Container recoveredPile = (Container) recovered.getState().getItems().get(0);
+		assertEquals(1, recoveredPile.stream().filter(item -> "Shiny".equals(item.nickName)).count(), "nicknames survive");
+
+		//a torn record at the end of the log is ignored
+		Character copy = recovered.getState().getCharacters().get(0);
+		copy.pick(new Apple());
+		recovered.sync();
+		String afterPick = describe(recovered.getState());
+		recovered.close();
+		try(Stream<Path> files = Files.list(directory)) {
+			Path last = files.filter(file -> file.toString().endsWith(".log")).sorted().reduce((a, b) -> b).get();
+			Files.write(last, new byte[] {0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+		}
+
+		Journal again = Journal.recover(directory);
+		assertEquals(afterPick, describe(again.getState()));
+		again.close();
+	}
+
+	@Test
+	public void testNestedRemoval() throws IOException {
+		Backpack backpack = new Backpack();
+		BeltPouch pouch = new BeltPouch();
+		GoldCoin coin = new GoldCoin();
+		backpack.add(pouch);
+		pouch.add(coin);
+		Journal journal = Journal.create(directory, new SaveFile(Collections.emptyList(), Collections.singletonList(backpack)));
+
+		//the coin and the pouch leave in one batch, and the coin comes back without the pouch
+		backpack.removeAll(Arrays.asList(coin, pouch));
+		backpack.add(coin);
+
+		journal.sync();
+		String expected = describe(journal.getState());
+		journal.close();
+
+		Journal recovered = Journal.recover(directory);
+		assertEquals(expected, describe(recovered.getState()));
+		recovered.close();
+	}
+
+	@Test
+	public void testCompaction() throws IOException {
+		ItemGroup pile = new ItemGroup("Pile", Float.MAX_VALUE, Float.MAX_VALUE, Integer.MAX_VALUE);
+		Journal journal = Journal.create(directory, new SaveFile(Collections.emptyList(), Collections.singletonList(pile)), 1, 1 << 10);
+
+		List<Item> items = new ArrayList<>();
+		for(int i = 0; i < 500; i++) {
+			Item item = i % 3 == 0 ? new Backpack() : new GoldCoin();
+			items.add(item);
+			pile.add(item);
+			if(i % 5 == 0) pile.remove(items.get(i / 2));
+			if(i % 3 == 1) pile.move(item, (Container) items.get(i - i % 3));
+		}
+		journal.compact();
+		journal.sync();
+		String expected = describe(journal.getState());
+		journal.close();
+
+		assertEquals(1, files(directory, "snapshot-*.sav"), "old snapshots should be deleted");
+		assertTrue(files(directory, "journal-*.log") <= 2, "compacted segments should be deleted");
+
+		Journal recovered = Journal.recover(directory);
+		assertEquals(expected, describe(recovered.getState()));
+		recovered.close();
+
+		assertThrows(IOException.class, () -> Journal.create(directory, new SaveFile(Collections.emptyList(), Collections.emptyList())));
+	}
+}
@@ -0,0 +1,78 @@
+package pathMinder;
+
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import pathMinder.core.*;
+
+public class LootTableTest {
+
+	private static List<String> describe(List<Item> items) {
+		List<String> descriptions = new ArrayList<>();
+		for(Item item : items) {
+			String description = item.getName();
+			if(item instanceof ItemStack) description += " x" + ((ItemStack) item).getQuantity();
+			if(item instanceof Container) description += " " + describe(Arrays.asList(((Container) item).toArray(new Item[0])));
+			descriptions.add(description);
+		}
+		return descriptions;
+	}
+
+	private static LootTable hoard() {
+		LootTable pouch = new LootTable()
+				.add(SilverCoin::new, 1, 20, 3)
+				.add(Apple::new, 1);
+		return new LootTable()
+				.add(GoldCoin::new, 1, 100, 5)
+				.add(Arrow::new, 10, 20, 3)
+				.add(Barrel::new, 1)
+				.add(BeltPouch::new, pouch, 3, 2)
+				.add(pouch, 2)
+				.addNothing(7);
+	}
+
+	@Test
+	public void testReproducible() {
+		LootTable table = hoard();
+		for(int rolls : new int[] {10, 100_000}) { //sequential, then parallel
+			List<String> first = describe(table.roll(rolls, 42));
+			assertEquals(first, describe(table.roll(rolls, 42)));
+			assertEquals(first, describe(hoard().roll(rolls, 42)), "a new but identical table gives the same loot");
+			assertNotEquals(first, describe(table.roll(rolls, 43)));
+		}
+	}
+
+	@Test
+	public void testStacking() {
+		LootTable coins = new LootTable().add(GoldCoin::new, 1, 3, 1).add(CopperCoin::new, 1);
+		List<Item> loot = coins.roll(1_000_000, 7);
+		assertEquals(2, loot.size(), "each stackable type becomes a single stack");
+
+		long gold = ((ItemStack) loot.get(0)).getQuantity(), copper = ((ItemStack) loot.get(1)).getQuantity();
+		assertEquals(GoldCoin.TYPE, loot.get(0).getType());
+		assertEquals(1_000_000, gold / 2 + copper, 2_000, "gold averages 2 coins a roll");
+		assertEquals(500_000, copper, 2_000);
+	}
+
+	@Test
+	public void testContainers() {
+		LootTable apples = new LootTable().add(Apple::new, 1);
+		LootTable table = new LootTable().add(Backpack::new, apples, 100, 1);
+
+		ItemGroup hoard = table.generate(3, 1);
+		assertEquals(3, hoard.getCount());
+		for(Backpack backpack : hoard.findByClass(Backpack.class)) {
+			assertEquals(1, backpack.getCount(), "the apples are stacked");
+			ItemStack stack = backpack.findByClass(ItemStack.class).get(0);
+			assertEquals(23, stack.getQuantity(), "only 23 of the 100 apples fit");
+		}
+
+		assertTrue(new LootTable().roll(100, 0).isEmpty());
+		assertTrue(new LootTable().addNothing(1).generate(100, 0).isEmpty());
+		assertThrows(IllegalArgumentException.class, () -> new LootTable().addNothing(0));
+		assertThrows(IllegalArgumentException.class, () -> new LootTable().add(Apple::new, 2, 1, 1));
+	}
+}
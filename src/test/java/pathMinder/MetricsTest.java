@@ -0,0 +1,125 @@
+package pathMinder;
+
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import pathMinder.core.*;
+
+public class MetricsTest {
+
+	@AfterEach
+	public void tearDown() {
+		Metrics.disable();
+		Metrics.reset();
+		Metrics.setSlowTraversalThreshold(1_000_000);
+	}
+
+	@Test
+	public void testDisabled() {
+		Metrics.reset();
+		ItemGroup pile = new ItemGroup("Pile", Float.MAX_VALUE, Float.MAX_VALUE, Integer.MAX_VALUE);
+		pile.add(new Apple());
+		pile.getContentsCost();
+
+		assertFalse(Metrics.isEnabled());
+		for(Metrics.Operation operation : Metrics.Operation.values()) assertEquals(0, Metrics.getCount(operation));
+		assertEquals(0, Metrics.getDepth().getCount());
+	}
+
+	@Test
+	public void testCounts() {
+		Metrics.reset();
+		Metrics.enable();
+
+		ItemGroup pile = new ItemGroup("Pile", Float.MAX_VALUE, Float.MAX_VALUE, Integer.MAX_VALUE);
+		Backpack backpack = new Backpack(), other = new Backpack();
+		pile.addAll(Arrays.asList(backpack, other));
+		Apple apple = new Apple();
+		backpack.add(apple);
+		assertTrue(pile.fits(new Apple()));
+		pile.move(apple, other);
+		pile.getContentsCost();
+		pile.toArray();
+		pile.remove(apple);
+
+		assertEquals(2, Metrics.getCount(Metrics.Operation.ADD));
+		assertEquals(1, Metrics.getCount(Metrics.Operation.FITS), "internal checks are not counted");
+		assertEquals(1, Metrics.getCount(Metrics.Operation.MOVE));
+		assertEquals(2, Metrics.getCount(Metrics.Operation.TRAVERSAL));
+		assertEquals(1, Metrics.getCount(Metrics.Operation.REMOVE));
+
+		//addAll, add, the detach and attach of the move, and remove
+		Metrics.Histogram depth = Metrics.getDepth();
+		assertEquals(5, depth.getCount());
+		assertEquals(9 / 5.0, depth.getMean(), 1e-9);
+		assertEquals(3, depth.getQuantile(1), "depths of 2 fall in the bucket up to 3");
+
+		Metrics.Histogram latency = Metrics.getLatency(Metrics.Operation.ADD);
+		assertTrue(latency.getQuantile(0.5) <= latency.getQuantile(1));
+		assertTrue(latency.getMean() > 0);
+
+		Metrics.reset();
+		assertEquals(0, Metrics.getCount(Metrics.Operation.ADD));
+		assertEquals(0, Metrics.getLatency(Metrics.Operation.ADD).getQuantile(0.99));
+	}
+
+	@Test
+	public void testRejections() {
+		Metrics.reset();
+		Metrics.enable();
+
+		ItemGroup box = new ItemGroup("Box", Float.MAX_VALUE, Float.MAX_VALUE, 1);
+		box.add(new Apple());
+		assertThrows(TooManyItemsException.class, () -> box.add(new Apple()));
+		assertThrows(TooManyItemsException.class, () -> box.addAll(Arrays.asList(new Apple(), new Apple())));
+		assertEquals(3, Metrics.getRejections());
+
+		pathMinder.core.Character weakling = new pathMinder.core.Character("Weakling", 1, 30);
+		while(weakling.pick(new Apple()));
+		assertEquals(4, Metrics.getRejections());
+	}
+
+	@Test
+	public void testFlightRecorder() throws Exception {
+		Metrics.enable();
+		Metrics.setSlowTraversalThreshold(0);
+
+		ItemGroup box = new ItemGroup("Box", Float.MAX_VALUE, Float.MAX_VALUE, 1);
+		Path file = Files.createTempFile("pathMinder", ".jfr");
+		try(Recording recording = new Recording()) {
+			recording.enable("pathMinder.SlowTraversal").withoutThreshold();
+			recording.enable("pathMinder.CapacityRejection");
+			recording.start();
+
+			box.add(new Apple());
+			assertThrows(TooManyItemsException.class, () -> box.add(new Apple()));
+			box.getContentsCost();
+
+			recording.stop();
+			recording.dump(file);
+		}
+
+		Map<String, RecordedEvent> events = new HashMap<>();
+		for(RecordedEvent event : RecordingFile.readAllEvents(file)) events.put(event.getEventType().getName(), event);
+		Files.delete(file);
+
+		RecordedEvent rejection = events.get("pathMinder.CapacityRejection");
+		assertNotNull(rejection);
+		assertEquals("Box", rejection.getString("container"));
+		assertEquals(1, rejection.getInt("count"));
+
+		RecordedEvent traversal = events.get("pathMinder.SlowTraversal");
+		assertNotNull(traversal);
+		assertEquals("Box", traversal.getString("container"));
+	}
+}
@@ -0,0 +1,187 @@
+package pathMinder;
+
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import pathMinder.core.*;
+import pathMinder.core.Character;
+
+public class SaveFileTest {
+
+	@TempDir
+	Path directory;
+
+	/**
+	 * Asserts that two trees have the same shape, types, quantities and instance state.
+	 */
+	private static void assertSameTree(Snapshot expected, Snapshot actual, Item expectedItem, Item actualItem) {
+		assertEquals(expected.getType(), actual.getType());
+		assertEquals(expected.getName(), actual.getName());
+		assertEquals(expected.getQuantity(), actual.getQuantity());
+		assertEquals(expected.getWeight(), actual.getWeight(), 1e-3);
+		assertEquals(expected.size(), actual.size());
+		assertSame(expectedItem.getClass(), actualItem.getClass());
+		assertEquals(expectedItem.nickName, actualItem.nickName);
+		assertEquals(expectedItem.description, actualItem.description);
+
+		List<Snapshot> expectedContents = expected.getContents(), actualContents = actual.getContents();
+		assertEquals(expectedContents.size(), actualContents.size());
+		for(int i = 0; i < expectedContents.size(); i++)
+			assertSameTree(expectedContents.get(i), actualContents.get(i), expectedContents.get(i).getItem(), actualContents.get(i).getItem());
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		Character character = new Character("Steve", 14, 30);
+		Backpack backpack = new Backpack();
+		backpack.nickName = "Old faithful";
+		backpack.description = "Patched, twice. ✓";
+		character.pick(backpack);
+		backpack.add(new ItemStack(new GoldCoin(), 250));
+		backpack.add(new Apple());
+		Arrow arrow = new Arrow();
+		arrow.nickName = "Lucky";
+		character.pick(arrow);
+
+		ItemGroup pile = new ItemGroup("Pile", 1000, Float.MAX_VALUE, 100);
+		Barrel barrel = new Barrel();
+		pile.add(barrel);
+		for(int i = 0; i < 30; i++) barrel.add(new Backpack());
+		ConcurrentItemGroup hoard = new ConcurrentItemGroup("Hoard", Float.MAX_VALUE, Float.MAX_VALUE, 10);
+		hoard.add(new ItemStack(new SilverCoin(), 1 << 20));
+
+		Path path = directory.resolve("campaign.sav");
+		new SaveFile(Collections.singletonList(character), Arrays.asList(pile, new Apple(), hoard)).write(path);
+		SaveFile loaded = SaveFile.read(path);
+
+		assertEquals(1, loaded.getCharacters().size());
+		Character copy = loaded.getCharacters().get(0);
+		assertEquals("Steve", copy.getName());
+		assertEquals(14, copy.getStrength());
+		assertEquals(30, copy.getBaseSpeed());
+		assertEquals(character.getEncumbrance(), copy.getEncumbrance());
+		assertEquals(character.getInventory().size(), copy.getInventory().size());
+		assertSameTree(character.getInventorySnapshot(), copy.getInventorySnapshot(), backpack.getContainer(), copy.getInventoryContents().iterator().next().getContainer());
+
+		List<Item> items = loaded.getItems();
+		assertEquals(3, items.size());
+		assertSameTree(pile.snapshot(), items.get(0).snapshot(), pile, items.get(0));
+		assertSameTree(hoard.snapshot(), items.get(2).snapshot(), hoard, items.get(2));
+		assertEquals(Apple.TYPE, items.get(1).getType());
+		assertEquals(1000, ((Container) items.get(0)).getType().getMaxWeight());
+
+		//the loaded trees are fully functional
+		Container loadedPile = (Container) items.get(0);
+		assertTrue(loadedPile.remove(loadedPile.iterator().next()));
+		assertTrue(loadedPile.isEmpty());
+	}
+
+	@Test
+	public void testLarge() throws IOException {
+		ItemGroup world = new ItemGroup("World", Float.MAX_VALUE, Float.MAX_VALUE, Integer.MAX_VALUE);
+		for(int i = 0; i < 1000; i++) {
+			Backpack backpack = new Backpack();
+			world.add(backpack);
+			for(int j = 0; j < 100; j++) backpack.add(j % 2 == 0 ? new GoldCoin() : new ItemStack(new Arrow(), j % 10 + 1));
+		}
+
+		Path path = directory.resolve("world.sav");
+		new SaveFile(Collections.emptyList(), Collections.singletonList(world)).write(path);
+		assertTrue(Files.size(path) < 6L * world.size(), "items should take only a few bytes each");
+
+		Container copy = (Container) SaveFile.read(path).getItems().get(0);
+		assertEquals(world.size(), copy.size());
+		assertEquals(world.getWeight(), copy.getWeight(), world.getWeight() / 1000, "the cached totals drift differently when built in bulk");
+		assertEquals(world.getContentsCost(), copy.getContentsCost(), 1);
+	}
+
+	@Test
+	public void testCorrupt() throws IOException {
+		Path path = directory.resolve("corrupt.sav");
+		Files.write(path, new byte[] {1, 2, 3});
+		assertThrows(IOException.class, () -> SaveFile.read(path));
+
+		ItemGroup pile = new ItemGroup("Pile", Float.MAX_VALUE, Float.MAX_VALUE, 10);
+		pile.add(new Backpack());
+		new SaveFile(Collections.emptyList(), Collections.singletonList(pile)).write(path);
+		byte[] bytes = Files.readAllBytes(path);
+		Files.write(path, Arrays.copyOf(bytes, bytes.length - 2));
+		assertThrows(IOException.class, () -> SaveFile.read(path), "truncated");
+	}
+
+	static boolean initialized = false;
+
+	/**
+	 * Not an Item; a save file naming it must be rejected before it is initialized.
+	 */
+	static class Initialized {
+		static { initialized = true; }
+	}
+
+	@Test
+	public void testUntrusted() throws IOException {
+		Path path = directory.resolve("untrusted.sav");
+		ConcurrentItemGroup pile = new ConcurrentItemGroup("Pile", 123.457f, 7.5f, 10);
+		new SaveFile(Collections.emptyList(), Collections.singletonList(pile)).write(path);
+
+		ConcurrentItemGroup copy = (ConcurrentItemGroup) SaveFile.read(path).getItems().get(0);
+		assertSame(pile.getType(), copy.getType(), "group limits are restored exactly");
+		assertEquals("Pile", copy.getName());
+
+		//swap the class name for one of the same length that is not an Item
+		String from = ConcurrentItemGroup.class.getName(), to = Initialized.class.getName();
+		assertEquals(from.length(), to.length());
+		byte[] bytes = Files.readAllBytes(path);
+		String text = new String(bytes, java.nio.charset.StandardCharsets.ISO_8859_1);
+		int at = text.indexOf(from);
+		System.arraycopy(to.getBytes(java.nio.charset.StandardCharsets.ISO_8859_1), 0, bytes, at, to.length());
+		Files.write(path, bytes);
+		assertThrows(IOException.class, () -> SaveFile.read(path));
+		assertFalse(initialized, "classes are not initialized before they are known to be items");
+
+		//nesting beyond MAX_DEPTH is rejected rather than overflowing the stack
+		ItemGroup root = new ItemGroup("Root", Float.MAX_VALUE, Float.MAX_VALUE, 1);
+		ItemGroup deepest = root;
+		for(int i = 0; i < SaveFile.MAX_DEPTH + 1; i++) {
+			ItemGroup nested = new ItemGroup("Nested", Float.MAX_VALUE, Float.MAX_VALUE, 1);
+			deepest.add(nested);
+			deepest = nested;
+		}
+		new SaveFile(Collections.emptyList(), Collections.singletonList(root)).write(path);
+		assertThrows(IOException.class, () -> SaveFile.read(path));
+	}
+
+	@Test
+	public void testCorruptHeader() throws IOException {
+		Path path = directory.resolve("corrupt.sav");
+		byte[] magic = {0x50, 0x4D, 0x53, 0x46, 2};
+
+		//a string pool of -1 strings, and of more strings than there are bytes left
+		Files.write(path, concat(magic, new byte[] {-1, -1, -1, -1, 0x0F}));
+		assertThrows(IOException.class, () -> SaveFile.read(path));
+		Files.write(path, concat(magic, new byte[] {-1, -1, -1, -1, 0x07}));
+		assertThrows(IOException.class, () -> SaveFile.read(path));
+
+		//a string of -1 bytes
+		Files.write(path, concat(magic, new byte[] {1, -1, -1, -1, -1, 0x0F}));
+		assertThrows(IOException.class, () -> SaveFile.read(path));
+
+		//a type named by the fifth of one string
+		Files.write(path, concat(magic, new byte[] {1, 1, 'A', 1, 5, 0, 0, 0, 0}));
+		IOException e = assertThrows(IOException.class, () -> SaveFile.read(path));
+		assertTrue(e.getMessage().contains("out of range"), e.getMessage());
+	}
+
+	private static byte[] concat(byte[] a, byte[] b) {
+		byte[] joined = Arrays.copyOf(a, a.length + b.length);
+		System.arraycopy(b, 0, joined, a.length, b.length);
+		return joined;
+	}
+}
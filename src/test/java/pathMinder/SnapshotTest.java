@@ -0,0 +1,88 @@
+package pathMinder;
+
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+import pathMinder.core.*;
+import pathMinder.core.Character;
+
+public class SnapshotTest {
+
+	@Test
+	public void testSnapshot() {
+		Backpack backpack = new Backpack();
+		BeltPouch pouch = new BeltPouch();
+		ItemStack coins = new ItemStack(new GoldCoin(), 20);
+		Apple apple = new Apple();
+		pouch.add(coins);
+		backpack.add(pouch);
+		backpack.add(apple);
+
+		Snapshot snapshot = backpack.snapshot();
+		assertSame(snapshot, backpack.snapshot(), "an unmodified tree should return the same snapshot");
+		assertSame(backpack, snapshot.getItem());
+		assertEquals(backpack.size(), snapshot.size());
+		assertEquals(backpack.getWeight(), snapshot.getWeight());
+		assertEquals(2, snapshot.getContents().size());
+		assertEquals(20, snapshot.getContents().get(0).getContents().get(0).getQuantity());
+		assertThrows(UnsupportedOperationException.class, () -> snapshot.getContents().clear());
+
+		List<Item> items = snapshot.stream().map(Snapshot::getItem).collect(Collectors.toList());
+		assertEquals(3, items.size());
+		assertTrue(items.containsAll(backpack));
+
+		//modifications do not affect existing snapshots
+		backpack.remove(apple);
+		coins.split(5);
+		assertEquals(3, snapshot.size());
+		assertEquals(20, snapshot.getContents().get(0).getContents().get(0).getQuantity());
+
+		Snapshot after = backpack.snapshot();
+		assertNotSame(snapshot, after);
+		assertEquals(2, after.size());
+		assertEquals(15, after.getContents().get(0).getContents().get(0).getQuantity());
+	}
+
+	@Test
+	public void testStructuralSharing() {
+		Backpack backpack = new Backpack();
+		BeltPouch left = new BeltPouch(), right = new BeltPouch();
+		left.add(new GoldCoin());
+		right.add(new SilverCoin());
+		backpack.add(left);
+		backpack.add(right);
+
+		Snapshot before = backpack.snapshot();
+		right.add(new CopperCoin());
+		Snapshot after = backpack.snapshot();
+
+		assertNotSame(before, after);
+		assertSame(before.getContents().get(0), after.getContents().get(0), "an unchanged sub-tree should be shared");
+		assertNotSame(before.getContents().get(1), after.getContents().get(1));
+	}
+
+	@Test
+	public void testConcurrentReaders() throws Exception {
+		Character character = new Character("Steve", 18, 30);
+		Backpack backpack = new Backpack();
+		character.pick(backpack);
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			for(int i = 0; i < 200; i++) {
+				Snapshot snapshot = character.getInventorySnapshot();
+				int expected = i;
+				Future<Long> count = executor.submit(() -> snapshot.stream().count());
+				backpack.add(new GoldCoin()); //keep mutating while the snapshot is read
+				assertEquals(expected + 1, (long) count.get(10, TimeUnit.SECONDS));
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package pathMinder;
+
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import pathMinder.core.*;
+
+public class SpliteratorTest {
+
+	/**
+	 * Builds a warehouse of nested containers holding a mix of items.
+	 */
+	private static ItemGroup warehouse(int barrels, int backpacks, int coins) {
+		ItemGroup warehouse = new ItemGroup("Warehouse", Float.MAX_VALUE, Float.MAX_VALUE, Integer.MAX_VALUE);
+		for(int i = 0; i < barrels; i++) {
+			Barrel barrel = new Barrel();
+			for(int j = 0; j < backpacks; j++) {
+				Backpack backpack = new Backpack();
+				for(int k = 0; k < coins; k++) backpack.add(k % 3 == 0 ? new SilverCoin() : new GoldCoin());
+				barrel.add(backpack);
+			}
+			warehouse.add(barrel);
+		}
+		warehouse.add(new Apple());
+		return warehouse;
+	}
+
+	@Test
+	public void testSplit() {
+		ItemGroup warehouse = warehouse(3, 4, 5);
+		Spliterator<Item> spliterator = warehouse.spliterator();
+		assertEquals(warehouse.size(), spliterator.estimateSize());
+		assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+
+		//recursively split as far as possible, checking the sizes are exact
+		Deque<Spliterator<Item>> pending = new ArrayDeque<>(Collections.singleton(spliterator));
+		List<Item> traversed = new ArrayList<>();
+		while(!pending.isEmpty()) {
+			Spliterator<Item> s = pending.pop();
+			Spliterator<Item> prefix = s.trySplit();
+			if(prefix != null) {
+				pending.push(s);
+				pending.push(prefix);
+				continue;
+			}
+
+			long expected = s.estimateSize();
+			int before = traversed.size();
+			s.forEachRemaining(traversed::add);
+			assertEquals(expected, traversed.size() - before, "a spliterator should report its size exactly");
+		}
+
+		List<Item> sequential = new ArrayList<>();
+		warehouse.forEach(sequential::add);
+		assertEquals(sequential, traversed, "splitting should preserve encounter order");
+	}
+
+	@Test
+	public void testSplitSingleContainer() {
+		Backpack backpack = new Backpack();
+		Bag bag = new Bag();
+		for(int i = 0; i < 6; i++) bag.add(new GoldCoin());
+		backpack.add(bag);
+
+		Spliterator<Item> spliterator = backpack.spliterator();
+		Spliterator<Item> prefix = spliterator.trySplit();
+		assertNotNull(prefix, "a lone container should be opened and split");
+		assertEquals(7, prefix.estimateSize() + spliterator.estimateSize());
+	}
+
+	@Test
+	public void testParallel() {
+		ItemGroup warehouse = warehouse(20, 20, 30);
+		Set<Item> parallel = warehouse.parallelStream().collect(Collectors.toSet());
+		assertEquals(warehouse.size(), parallel.size(), "every item should be traversed exactly once");
+		assertEquals(warehouse.size(), warehouse.parallelStream().count());
+
+		float cost = 0;
+		long gold = 0;
+		for(Item item : warehouse) {
+			cost += item.getCost();
+			if(item instanceof GoldCoin) gold++;
+		}
+		assertEquals(cost, warehouse.getContentsCost(), cost * 1e-6);
+		assertEquals(gold, warehouse.count(item -> item instanceof GoldCoin));
+		assertEquals(warehouse.size(), warehouse.sum(item -> 1));
+	}
+
+	private static class Bag extends Container {
+		public Bag() {super("Bag", 1, 0f, 1000, 10, 10, 10, false); }
+	}
+}
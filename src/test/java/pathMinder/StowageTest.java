@@ -0,0 +1,98 @@
+package pathMinder;
+
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import pathMinder.core.*;
+import pathMinder.core.Character;
+
+public class StowageTest {
+
+	private static List<Item> loot(int apples, int stacks) {
+		List<Item> loot = new ArrayList<>();
+		for(int i = 0; i < apples; i++) loot.add(new Apple());
+		for(int i = 0; i < stacks; i++) loot.add(new ItemStack(new Arrow(), 1 + i % 40));
+		return loot;
+	}
+
+	@Test
+	public void testPacking() {
+		Barrel barrel = new Barrel();
+		Backpack inside = new Backpack(), outside = new Backpack();
+		barrel.add(inside);
+		List<Container> containers = Arrays.asList(inside, outside, barrel);
+		List<Item> loot = loot(150, 60);
+		loot.add(new Barrel()); //fits nowhere
+
+		//about 15 cu. ft. of loot, besides the barrel, for 12 cu. ft. of room
+		Stowage stowage = Stowage.plan(loot, containers);
+		assertTrue(stowage.getUnplaced().contains(loot.get(loot.size() - 1)));
+		assertEquals(loot.size(), stowage.getAssignments().size() + stowage.getUnplaced().size());
+		assertTrue(stowage.getAssignments().size() > 140);
+
+		stowage.apply();
+		for(Item item : stowage.getAssignments().keySet()) assertSame(stowage.getAssignments().get(item), item.getContainer());
+		assertTrue(barrel.getContentsVolume() <= barrel.getType().getMaxVolume());
+		assertTrue(inside.getContentsVolume() <= inside.getType().getMaxVolume());
+		assertTrue(outside.getContentsVolume() <= outside.getType().getMaxVolume());
+		assertThrows(IllegalStateException.class, stowage::apply);
+
+		//best fit leaves no room for another apple in any of them
+		for(Container container : containers) assertFalse(container.fits(new Apple()), container.getName());
+	}
+
+	@Test
+	public void testEncumbrance() {
+		Character strong = new Character("Strong", 18, 30), weak = new Character("Weak", 10, 30);
+		List<Item> loot = new ArrayList<>();
+		for(int i = 0; i < 60; i++) loot.add(new ItemStack(new GoldCoin(), 50));
+
+		Stowage stowage = Stowage.plan(loot, Collections.emptyList(), Arrays.asList(strong, weak), true);
+		assertTrue(stowage.getUnplaced().isEmpty());
+		stowage.apply();
+
+		//the load is shared in proportion to strength, so both stay at the lowest encumbrance they can
+		assertEquals(Encumbrance.Light, strong.getEncumbrance());
+		assertEquals(Encumbrance.Light, weak.getEncumbrance());
+		assertTrue(strong.getInventory().size() > weak.getInventory().size());
+
+		//loot goes to containers no one carries before anyone's pack
+		ItemGroup pile = new ItemGroup("Pile", Float.MAX_VALUE, Float.MAX_VALUE, Integer.MAX_VALUE);
+		Stowage dropped = Stowage.plan(loot(10, 0), Collections.singletonList(pile), Collections.singletonList(weak), true);
+		assertEquals(10, Collections.frequency(dropped.getAssignments().values(), pile));
+	}
+
+	@Test
+	public void testConflict() {
+		Backpack backpack = new Backpack();
+		Stowage stowage = Stowage.plan(loot(5, 0), Collections.singletonList(backpack));
+		backpack.add(new Apple());
+		assertThrows(ConcurrentModificationException.class, stowage::apply);
+		assertEquals(1, backpack.size());
+
+		assertThrows(IllegalArgumentException.class, () -> Stowage.plan(Collections.singletonList(backpack), Collections.singletonList(backpack)));
+
+		//a container holding one of the candidates is no candidate itself, so it is merely left unplaced
+		Barrel barrel = new Barrel();
+		ItemGroup pile = new ItemGroup("Pile", Float.MAX_VALUE, Float.MAX_VALUE, Integer.MAX_VALUE);
+		barrel.add(backpack);
+		Stowage nested = Stowage.plan(Arrays.asList(barrel, new Apple()), Arrays.asList(backpack, pile));
+		assertEquals(Collections.singletonList(barrel), nested.getUnplaced());
+		assertEquals(1, nested.getAssignments().size());
+
+		//an item within another of the items travels with it, rather than being moved twice by one transaction
+		Backpack full = new Backpack();
+		Apple inside = new Apple();
+		full.add(inside);
+		ItemGroup floor = new ItemGroup("Floor", Float.MAX_VALUE, Float.MAX_VALUE, Integer.MAX_VALUE);
+		Stowage together = Stowage.plan(Arrays.asList(full, inside), Collections.singletonList(floor));
+		assertEquals(Collections.singleton(full), together.getAssignments().keySet());
+		assertTrue(together.getUnplaced().isEmpty());
+		together.apply();
+		assertSame(floor, full.getContainer());
+		assertSame(full, inside.getContainer());
+	}
+}
@@ -0,0 +1,97 @@
+package pathMinder;
+
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import pathMinder.core.*;
+import pathMinder.core.Character;
+
+public class TransactionTest {
+
+	@Test
+	public void testTrade() {
+		Character alice = new Character("Alice"), bob = new Character("Bob");
+		Backpack backpack = new Backpack();
+		Apple apple = new Apple();
+		alice.pick(backpack);
+		backpack.add(apple);
+		ItemStack gold = new ItemStack(new GoldCoin(), 50);
+		bob.pick(gold);
+
+		List<ContainerEvent> events = new ArrayList<>();
+		backpack.addListener(events::add);
+
+		new Transaction().give(apple, bob).move(gold, backpack).commit();
+		assertTrue(bob.has(apple));
+		assertFalse(alice.has(apple));
+		assertTrue(backpack.contains(gold));
+		assertFalse(bob.has(gold));
+		assertEquals(2, events.size());
+		assertEquals(2, alice.getInventory().size());
+	}
+
+	@Test
+	public void testConstraints() {
+		Character alice = new Character("Alice"), weakling = new Character("Weakling", 1, 30);
+		Barrel barrel = new Barrel();
+		Apple apple = new Apple();
+		alice.pick(barrel);
+		weakling.pick(apple);
+
+		//the barrel is far too heavy for the weakling, so neither half of the trade happens
+		Transaction trade = new Transaction().give(barrel, weakling).give(apple, alice);
+		TooManyItemsException e = assertThrows(TooManyItemsException.class, trade::commit);
+		assertEquals(Collections.singletonList(barrel), e.getRejected());
+		assertTrue(alice.has(barrel));
+		assertTrue(weakling.has(apple));
+
+		//a full backpack can swap one item for another, as the limits are checked against the outcome of the whole transaction
+		Backpack backpack = new Backpack();
+		alice.pick(backpack);
+		while(backpack.fits(new Apple())) backpack.add(new Apple());
+		Apple other = new Apple();
+		assertThrows(TooManyItemsException.class, () -> backpack.add(other));
+
+		Item eaten = backpack.iterator().next();
+		new Transaction().remove(eaten).move(other, backpack).commit();
+		assertFalse(eaten.isContained());
+		assertTrue(backpack.contains(other));
+
+		//but not two for one
+		Transaction greedy = new Transaction().remove(other).move(new Apple(), backpack).move(new Apple(), backpack);
+		assertEquals(2, assertThrows(TooManyItemsException.class, greedy::commit).getRejected().size());
+		assertTrue(backpack.contains(other));
+	}
+
+	@Test
+	public void testConflicts() {
+		Character alice = new Character("Alice"), bob = new Character("Bob");
+		Apple apple = new Apple();
+		alice.pick(apple);
+
+		//the trade was proposed before Alice picked something else up
+		Transaction trade = new Transaction().give(apple, bob);
+		alice.pick(new Apple());
+		assertThrows(ConcurrentModificationException.class, trade::commit);
+		assertTrue(alice.has(apple));
+
+		Transaction committed = new Transaction().give(apple, bob);
+		committed.commit();
+		assertTrue(bob.has(apple));
+		assertThrows(IllegalStateException.class, committed::commit);
+
+		//moves must be independent of each other
+		Backpack backpack = new Backpack();
+		Apple inside = new Apple();
+		bob.pick(backpack);
+		backpack.add(inside);
+		assertThrows(IllegalArgumentException.class, new Transaction().give(backpack, alice).give(inside, alice)::commit);
+		assertThrows(IllegalArgumentException.class, new Transaction().give(backpack, alice).move(apple, backpack)::commit);
+		assertThrows(IllegalArgumentException.class, () -> new Transaction().give(apple, alice).remove(apple));
+		assertTrue(bob.has(inside));
+		assertTrue(bob.has(apple));
+	}
+}
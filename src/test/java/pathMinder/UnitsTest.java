@@ -0,0 +1,69 @@
+package pathMinder;
+
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import pathMinder.core.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class UnitsTest {
+
+	@Test
+	public void testConversion() {
+		assertEquals(20, Units.weight(1/50f), "a gold coin weighs exactly 20 units");
+		assertEquals(16600, Units.volume(1.66E-5f));
+		assertEquals(200f, Units.pounds(200 * Units.PER_POUND));
+		assertEquals(Units.UNLIMITED, Units.weight(Float.MAX_VALUE), "unlimited limits saturate");
+		assertEquals(Float.MAX_VALUE, Units.pounds(Units.UNLIMITED));
+		assertEquals(Float.MAX_VALUE, Backpack.TYPE.getMaxWeight());
+		assertEquals(Units.weight(650f), new Barrel().getType().getMaxWeightUnits());
+	}
+
+	@Test
+	public void testExactSums() {
+		ItemGroup hoard = new ItemGroup("Hoard", Float.MAX_VALUE, Float.MAX_VALUE, Integer.MAX_VALUE);
+		List<Item> coins = new ArrayList<>();
+		for(int i = 0; i < 10000; i++) coins.add(new GoldCoin());
+		hoard.addAll(coins);
+
+		assertEquals(200 * Units.PER_POUND, hoard.getContentsWeightUnits());
+		assertEquals(200f, hoard.getContentsWeight(), "ten thousand coins at a fiftieth of a pound weigh exactly 200 lb");
+		assertEquals(new ItemStack(new GoldCoin(), 10000).getWeightUnits(), hoard.getContentsWeightUnits());
+		assertEquals(Container.getWeight(coins), hoard.getContentsWeight());
+		assertEquals(10000 * 100L, hoard.getContentsCostUnits());
+	}
+
+	@Test
+	public void testNoDrift() {
+		Random random = new Random(25);
+		ItemGroup cart = new ItemGroup("Cart", 2000, 100, 1000);
+		Barrel barrel = new Barrel();
+		cart.add(barrel);
+		long weight = cart.getContentsWeightUnits(), volume = cart.getContentsVolumeUnits();
+
+		List<Item> added = new ArrayList<>();
+		for(int i = 0; i < 5000; i++) {
+			if(!added.isEmpty() && random.nextBoolean()) {
+				Item item = added.remove(random.nextInt(added.size()));
+				item.getContainer().remove(item);
+				continue;
+			}
+			Item item = random.nextBoolean() ? new ItemStack(new Arrow(), 1 + random.nextInt(30)) : new Apple();
+			Container into = random.nextBoolean() ? barrel : cart;
+			if(into.fits(item)) {
+				into.add(item);
+				added.add(item);
+			}
+		}
+		for(Item item : added) item.getContainer().remove(item);
+
+		assertEquals(weight, cart.getContentsWeightUnits(), "totals return exactly to where they started");
+		assertEquals(volume, cart.getContentsVolumeUnits());
+		assertEquals(0, barrel.getContentsWeightUnits());
+		assertEquals(0f, barrel.getContentsWeight());
+	}
+}